@@ -0,0 +1,11 @@
+package com.ecommerce.product.cache;
+
+public final class CacheNames {
+    public static final String PRODUCT = "product"; // ProductResponse by id
+    public static final String VENDOR_PRODUCTS = "vendorProducts"; // Summaries by vendor email
+    public static final String PRODUCT_LIST = "productList"; // Full catalog summary list
+    public static final String PRODUCT_PAGES = "productPages"; // Keyset listing pages
+
+    private CacheNames() {
+    }
+}
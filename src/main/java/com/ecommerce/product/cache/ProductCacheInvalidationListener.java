@@ -0,0 +1,62 @@
+package com.ecommerce.product.cache;
+
+import com.ecommerce.product.dto.ProductEvent;
+import com.ecommerce.product.dto.StockEvent;
+import com.ecommerce.product.service.NegotiationSessionStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps every node's near-cache coherent. Each instance consumes product-events in
+ * its own consumer group, so every node sees every mutation and drops only the
+ * affected L1 entries; the shared Redis tier is already evicted by the writer.
+ * Pricing snapshots held by live negotiations are dropped the same way. Stock
+ * moves arrive on product-stock-events and drop the same entries except pricing,
+ * which stock does not change.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ProductCacheInvalidationListener {
+
+    private final TwoLevelCacheManager cacheManager;
+    private final ObjectMapper objectMapper;
+    private final NegotiationSessionStore negotiationSessionStore;
+
+    @KafkaListener(topics = "product-events", groupId = "product-cache-${random.uuid}",
+            containerFactory = "cacheInvalidationListenerFactory")
+    public void onProductEvent(String payload) {
+        try {
+            ProductEvent event = objectMapper.readValue(payload, ProductEvent.class);
+            cacheManager.evictLocal(CacheNames.PRODUCT, event.getProductId());
+            cacheManager.evictLocal(CacheNames.VENDOR_PRODUCTS, event.getVendorEmail());
+            cacheManager.clearLocal(CacheNames.PRODUCT_LIST);
+            cacheManager.clearLocal(CacheNames.PRODUCT_PAGES);
+            negotiationSessionStore.invalidatePricing(event.getProductId());
+            log.debug("Invalidated near-cache for product {} ({})", event.getProductId(), event.getEventType());
+        } catch (Exception e) {
+            log.warn("Unreadable product event, clearing near-cache: {}", e.getMessage());
+            cacheManager.getCacheNames().forEach(cacheManager::clearLocal);
+            negotiationSessionStore.invalidatePricing(null);
+        }
+    }
+
+    @KafkaListener(topics = "product-stock-events", groupId = "product-cache-${random.uuid}",
+            containerFactory = "cacheInvalidationListenerFactory")
+    public void onStockEvent(String payload) {
+        try {
+            StockEvent event = objectMapper.readValue(payload, StockEvent.class);
+            cacheManager.evictLocal(CacheNames.PRODUCT, event.getProductId());
+            cacheManager.evictLocal(CacheNames.VENDOR_PRODUCTS, event.getVendorEmail());
+            cacheManager.clearLocal(CacheNames.PRODUCT_LIST);
+            cacheManager.clearLocal(CacheNames.PRODUCT_PAGES);
+            log.debug("Invalidated near-cache for product {} (stock)", event.getProductId());
+        } catch (Exception e) {
+            log.warn("Unreadable stock event, clearing near-cache: {}", e.getMessage());
+            cacheManager.getCacheNames().forEach(cacheManager::clearLocal);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.ecommerce.product.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Coalesces concurrent loads of the same key: the first caller runs the loader,
+ * everyone arriving while it is in flight waits for and shares its result.
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final Counter originating;
+    private final Counter coalesced;
+
+    public SingleFlight(String name, MeterRegistry registry) {
+        this.originating = Counter.builder("cache.load.requests")
+                .description("Cache miss loads by whether they ran the loader or joined one in flight")
+                .tag("cache", name)
+                .tag("origin", "originating")
+                .register(registry);
+        this.coalesced = Counter.builder("cache.load.requests")
+                .description("Cache miss loads by whether they ran the loader or joined one in flight")
+                .tag("cache", name)
+                .tag("origin", "coalesced")
+                .register(registry);
+        Gauge.builder("cache.load.in.flight", inFlight, ConcurrentHashMap::size)
+                .tag("cache", name)
+                .register(registry);
+    }
+
+    public V execute(K key, Callable<V> loader) throws Exception {
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, mine);
+        if (existing != null) {
+            coalesced.increment();
+            return await(existing);
+        }
+
+        originating.increment();
+        try {
+            V value = loader.call();
+            mine.complete(value);
+            return value;
+        } catch (Exception | Error e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    private V await(CompletableFuture<V> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception ex) {
+                throw ex;
+            }
+            if (cause instanceof Error err) {
+                throw err;
+            }
+            throw e;
+        }
+    }
+}
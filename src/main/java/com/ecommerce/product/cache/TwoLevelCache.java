@@ -0,0 +1,132 @@
+package com.ecommerce.product.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Caffeine near-cache (L1, per node) in front of a shared Redis cache (L2).
+ * Reads fall through L1 -> L2 -> loader and back-fill the faster tiers; writes go
+ * to L2 first so another node never repopulates its L1 from a stale L2 entry.
+ * Redis failures degrade to a miss instead of failing the request. Synchronized
+ * gets ({@code @Cacheable(sync = true)}) are coalesced per key, so a burst of
+ * misses for one hot entry costs a single load and a single fill.
+ */
+@Slf4j
+public class TwoLevelCache extends AbstractValueAdaptingCache {
+
+    private final String name;
+    private final com.github.benmanes.caffeine.cache.Cache<Object, Object> local;
+    private final Cache remote;
+    private final SingleFlight<Object, Object> loads;
+
+    public TwoLevelCache(String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> local, Cache remote,
+            SingleFlight<Object, Object> loads) {
+        super(false);
+        this.name = name;
+        this.local = local;
+        this.remote = remote;
+        this.loads = loads;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return local;
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        Object value = local.getIfPresent(key);
+        if (value != null) {
+            return value;
+        }
+        value = remoteGet(key);
+        if (value != null) {
+            local.put(key, value);
+        }
+        return value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        Object value = lookup(key);
+        if (value != null) {
+            return (T) fromStoreValue(value);
+        }
+        try {
+            return (T) fromStoreValue(loads.execute(key, () -> {
+                // A flight that finished just before ours may already have filled the cache
+                Object current = lookup(key);
+                if (current != null) {
+                    return current;
+                }
+                T loaded = valueLoader.call();
+                put(key, loaded);
+                return loaded;
+            }));
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        if (value == null) {
+            evict(key);
+            return;
+        }
+        try {
+            remote.put(key, value);
+        } catch (RuntimeException e) {
+            log.warn("Redis put failed for {}::{}: {}", name, key, e.getMessage());
+        }
+        local.put(key, value);
+    }
+
+    @Override
+    public void evict(Object key) {
+        try {
+            remote.evict(key);
+        } catch (RuntimeException e) {
+            log.warn("Redis evict failed for {}::{}: {}", name, key, e.getMessage());
+        }
+        local.invalidate(key);
+    }
+
+    @Override
+    public void clear() {
+        try {
+            remote.clear();
+        } catch (RuntimeException e) {
+            log.warn("Redis clear failed for {}: {}", name, e.getMessage());
+        }
+        local.invalidateAll();
+    }
+
+    /** Drops the entry from this node's near-cache only; used for cross-node invalidation. */
+    public void evictLocal(Object key) {
+        local.invalidate(key);
+    }
+
+    public void clearLocal() {
+        local.invalidateAll();
+    }
+
+    private Object remoteGet(Object key) {
+        try {
+            ValueWrapper wrapper = remote.get(key);
+            return wrapper != null ? wrapper.get() : null;
+        } catch (RuntimeException e) {
+            log.warn("Redis get failed for {}::{}: {}", name, key, e.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.ecommerce.product.cache;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class TwoLevelCacheManager implements CacheManager {
+
+    private final Map<String, TwoLevelCache> caches = new LinkedHashMap<>();
+
+    public TwoLevelCacheManager(Collection<TwoLevelCache> caches) {
+        caches.forEach(cache -> this.caches.put(cache.getName(), cache));
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        return caches.get(name);
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return Collections.unmodifiableSet(caches.keySet());
+    }
+
+    public void evictLocal(String name, Object key) {
+        TwoLevelCache cache = caches.get(name);
+        if (cache != null && key != null) {
+            cache.evictLocal(key);
+        }
+    }
+
+    public void clearLocal(String name) {
+        TwoLevelCache cache = caches.get(name);
+        if (cache != null) {
+            cache.clearLocal();
+        }
+    }
+}
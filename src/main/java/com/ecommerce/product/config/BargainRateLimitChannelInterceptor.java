@@ -0,0 +1,70 @@
+package com.ecommerce.product.config;
+
+import com.ecommerce.product.dto.BargainResponse;
+import com.ecommerce.product.service.BargainRateLimiter;
+import com.ecommerce.product.service.BargainReplySender;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+
+import java.security.Principal;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Drops STOMP bargaining messages over the sender's rate limit before they reach
+ * the handler (and its writes and AI call), and tells the user to slow down.
+ * Senders are identified by the connection's principal, which comes from the
+ * gateway-authenticated handshake (see {@link StompUserInterceptor}), or by the STOMP
+ * session when there is none, never by the {@code userId} in the destination:
+ * that segment is chosen by the client, so keying on it would let a bot rotate ids
+ * past its limit or spend another user's budget.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class BargainRateLimitChannelInterceptor implements ChannelInterceptor {
+
+    private static final Pattern BARGAIN_DESTINATION = Pattern.compile("^/app/bargain/(\\d+)/[^/]+$");
+
+    private final BargainRateLimiter rateLimiter;
+    private final BargainReplySender bargainReplySender;
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || !StompCommand.SEND.equals(accessor.getCommand())
+                || accessor.getDestination() == null) {
+            return message;
+        }
+        Matcher matcher = BARGAIN_DESTINATION.matcher(accessor.getDestination());
+        if (!matcher.matches()) {
+            return message;
+        }
+
+        Principal principal = accessor.getUser();
+        String caller = principal != null ? principal.getName() : "session:" + accessor.getSessionId();
+        BargainRateLimiter.Decision decision = rateLimiter.tryAcquire(BargainRateLimiter.Channel.STOMP, caller,
+                Long.valueOf(matcher.group(1)));
+        if (decision.allowed()) {
+            return message;
+        }
+        log.debug("Throttled bargaining message from {} ({} limit)", caller, decision.scope());
+        if (principal == null) {
+            // No user queue to answer on; the handler would turn this message away anyway
+            return null;
+        }
+        bargainReplySender.send(principal.getName(), BargainResponse.builder()
+                .accepted(false)
+                .responseMessage("Whoa, slow down! Give me " + Math.max(1, decision.retryAfterMillis() / 1000)
+                        + "s to think about your last offer.")
+                .build());
+        return null;
+    }
+}
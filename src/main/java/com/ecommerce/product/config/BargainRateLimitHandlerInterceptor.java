@@ -0,0 +1,57 @@
+package com.ecommerce.product.config;
+
+import com.ecommerce.product.dto.ErrorResponse;
+import com.ecommerce.product.service.BargainRateLimiter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.util.List;
+
+/**
+ * Rejects REST bargaining requests over the caller's rate limit with 429 and a
+ * Retry-After header. Callers are identified by the gateway's X-User-Email header,
+ * or by address when anonymous; the product is in the body, so only the per-user
+ * bucket applies here.
+ */
+@Component
+@RequiredArgsConstructor
+public class BargainRateLimitHandlerInterceptor implements HandlerInterceptor {
+
+    private final BargainRateLimiter rateLimiter;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+            throws Exception {
+        if (!"POST".equals(request.getMethod())) {
+            return true;
+        }
+        String userId = request.getHeader("X-User-Email");
+        if (!StringUtils.hasText(userId)) {
+            userId = "ip:" + request.getRemoteAddr();
+        }
+        BargainRateLimiter.Decision decision = rateLimiter.tryAcquire(BargainRateLimiter.Channel.HTTP, userId,
+                null);
+        if (decision.allowed()) {
+            return true;
+        }
+
+        long retryAfterSeconds = Math.max(1, (decision.retryAfterMillis() + 999) / 1000);
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), new ErrorResponse(
+                HttpStatus.TOO_MANY_REQUESTS.value(),
+                "Too many bargaining requests. Please wait before trying again.",
+                List.of("Retry after " + retryAfterSeconds + "s")));
+        return false;
+    }
+}
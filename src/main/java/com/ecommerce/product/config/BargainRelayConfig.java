@@ -0,0 +1,33 @@
+package com.ecommerce.product.config;
+
+import com.ecommerce.product.service.BargainReplySender;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Subscribes this instance to bargaining replies published by every instance, for
+ * {@code bargain.websocket.broker=redis}. In the default {@code simple} mode replies
+ * never leave the instance and no subscription is made.
+ */
+@Configuration
+@ConditionalOnProperty(name = "bargain.websocket.broker", havingValue = "redis")
+public class BargainRelayConfig {
+
+    @Bean
+    public RedisMessageListenerContainer bargainReplyListenerContainer(RedisConnectionFactory connectionFactory,
+            BargainReplySender bargainReplySender) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(
+                (message, pattern) -> bargainReplySender.onRelayedReply(
+                        new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(BargainReplySender.RELAY_CHANNEL));
+        return container;
+    }
+}
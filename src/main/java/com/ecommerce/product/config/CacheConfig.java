@@ -0,0 +1,87 @@
+package com.ecommerce.product.config;
+
+import com.ecommerce.product.cache.CacheNames;
+import com.ecommerce.product.cache.SingleFlight;
+import com.ecommerce.product.cache.TwoLevelCache;
+import com.ecommerce.product.cache.TwoLevelCacheManager;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+@Configuration
+public class CacheConfig {
+
+    @Value("${product.cache.local.maximum-size:10000}")
+    private long localMaximumSize;
+
+    @Value("${product.cache.local.ttl:60s}")
+    private Duration localTtl;
+
+    @Value("${product.cache.redis.ttl:10m}")
+    private Duration redisTtl;
+
+    @Value("${product.cache.listing-ttl:30s}")
+    private Duration listingTtl;
+
+    @Bean
+    public TwoLevelCacheManager cacheManager(RedisConnectionFactory connectionFactory, MeterRegistry registry) {
+        RedisCacheConfiguration defaults = RedisCacheConfiguration.defaultCacheConfig().entryTtl(redisTtl);
+        RedisCacheManager redisCacheManager = RedisCacheManager.builder(connectionFactory)
+                .cacheDefaults(defaults)
+                .withCacheConfiguration(CacheNames.PRODUCT_LIST, defaults.entryTtl(listingTtl))
+                .withCacheConfiguration(CacheNames.PRODUCT_PAGES, defaults.entryTtl(listingTtl))
+                .build();
+        redisCacheManager.afterPropertiesSet();
+
+        // Listings change with any product write, so their near-cache lives no longer than the Redis copy
+        return new TwoLevelCacheManager(List.of(
+                twoLevelCache(CacheNames.PRODUCT, localTtl, redisCacheManager, registry),
+                twoLevelCache(CacheNames.VENDOR_PRODUCTS, localTtl, redisCacheManager, registry),
+                twoLevelCache(CacheNames.PRODUCT_LIST, min(localTtl, listingTtl), redisCacheManager, registry),
+                twoLevelCache(CacheNames.PRODUCT_PAGES, min(localTtl, listingTtl), redisCacheManager, registry)));
+    }
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, String> cacheInvalidationListenerFactory(
+            KafkaProperties kafkaProperties) {
+        Map<String, Object> props = kafkaProperties.buildConsumerProperties(null);
+        props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "latest");
+        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, true);
+
+        ConcurrentKafkaListenerContainerFactory<String, String> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(new DefaultKafkaConsumerFactory<>(props));
+        return factory;
+    }
+
+    private TwoLevelCache twoLevelCache(String name, Duration ttl, RedisCacheManager redisCacheManager,
+            MeterRegistry registry) {
+        com.github.benmanes.caffeine.cache.Cache<Object, Object> local = Caffeine.newBuilder()
+                .maximumSize(localMaximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(registry, local, name);
+        return new TwoLevelCache(name, local, redisCacheManager.getCache(name), new SingleFlight<>(name, registry));
+    }
+
+    private static Duration min(Duration a, Duration b) {
+        return a.compareTo(b) <= 0 ? a : b;
+    }
+}
@@ -71,5 +71,10 @@ public class DataSeeder implements CommandLineRunner {
         } else {
             log.info("Database already contains data, skipping seeding.");
         }
+
+        int backfilled = productRepository.backfillThumbnailUrls();
+        if (backfilled > 0) {
+            log.info("Backfilled thumbnail URLs for {} products.", backfilled);
+        }
     }
 }
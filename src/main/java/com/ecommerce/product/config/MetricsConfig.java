@@ -1,14 +1,66 @@
 package com.ecommerce.product.config;
 
+import com.ecommerce.product.service.BargainMetrics;
 import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Meter;
 import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+
 @Configuration
 public class MetricsConfig {
     @Bean
     public TimedAspect timedAspect(MeterRegistry registry) {
         return new TimedAspect(registry);
     }
+
+    /**
+     * Publishes histogram buckets for the negotiation meters so Prometheus can
+     * aggregate percentiles across instances, plus client-side percentiles for
+     * quick reads on a single pod.
+     */
+    @Bean
+    public MeterFilter bargainDistributionFilter(
+            @Value("${bargain.metrics.percentiles:0.5,0.95,0.99}") double[] percentiles,
+            @Value("${bargain.metrics.max-expected-turn:10s}") Duration maxExpectedTurn) {
+        return new MeterFilter() {
+            @Override
+            public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
+                String name = id.getName();
+                if (name.equals(BargainMetrics.TURN) || name.equals(BargainMetrics.STAGE)) {
+                    return DistributionStatisticConfig.builder()
+                            .percentilesHistogram(true)
+                            .percentiles(percentiles)
+                            .minimumExpectedValue((double) Duration.ofMillis(1).toNanos())
+                            .maximumExpectedValue((double) maxExpectedTurn.toNanos())
+                            .build()
+                            .merge(config);
+                }
+                if (name.equals(BargainMetrics.HISTORY_LENGTH)) {
+                    return DistributionStatisticConfig.builder()
+                            .percentilesHistogram(true)
+                            .percentiles(percentiles)
+                            .maximumExpectedValue(100.0)
+                            .build()
+                            .merge(config);
+                }
+                if (name.equals(BargainMetrics.OFFER_RATIO)) {
+                    // Recorded in percent; the default buckets are sparse just where offers cluster
+                    return DistributionStatisticConfig.builder()
+                            .percentilesHistogram(true)
+                            .percentiles(percentiles)
+                            .serviceLevelObjectives(30, 50, 60, 70, 75, 80, 85, 90, 95, 100)
+                            .maximumExpectedValue(200.0)
+                            .build()
+                            .merge(config);
+                }
+                return config;
+            }
+        };
+    }
 }
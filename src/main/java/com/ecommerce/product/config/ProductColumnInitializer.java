@@ -0,0 +1,37 @@
+package com.ecommerce.product.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Fills the stock and version columns for products created before they existed.
+ * Hibernate cannot increment a null version, so this must run before the web
+ * server accepts requests rather than alongside the seeder.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ProductColumnInitializer {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManagerFactory entityManagerFactory; // Ensures schema update has run
+
+    @PostConstruct
+    public void backfill() {
+        try {
+            int versions = jdbcTemplate.update("UPDATE products SET version = 0 WHERE version IS NULL");
+            int reserved = jdbcTemplate.update("UPDATE products SET reserved_quantity = 0 WHERE reserved_quantity IS NULL");
+            int stock = jdbcTemplate.update("UPDATE products SET stock_quantity = 0 WHERE stock_quantity IS NULL");
+            if (versions + reserved + stock > 0) {
+                log.info("Backfilled product columns: {} versions, {} reserved quantities, {} stock quantities",
+                        versions, reserved, stock);
+            }
+        } catch (Exception e) {
+            log.error("Could not backfill product version and stock columns", e);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.ecommerce.product.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Moves the pooled id sequences past ids already handed out by the old IDENTITY
+ * columns. Runs after Hibernate has created the sequence tables and before the web
+ * server accepts requests, so no insert can draw a colliding id.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SequenceInitializer {
+
+    private static final int ALLOCATION_SIZE = 50;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManagerFactory entityManagerFactory; // Ensures schema update has run
+
+    @PostConstruct
+    public void alignSequences() {
+        align("product_seq", "products");
+        align("bargain_history_seq", "bargain_history");
+        align("bargain_message_seq", "bargain_messages");
+    }
+
+    private void align(String sequenceTable, String entityTable) {
+        try {
+            int updated = jdbcTemplate.update("UPDATE " + sequenceTable + " SET next_val = GREATEST(next_val,"
+                    + " (SELECT COALESCE(MAX(id), 0) + ? FROM " + entityTable + "))", ALLOCATION_SIZE + 1);
+            log.info("Aligned id sequence {} with {} ({} row)", sequenceTable, entityTable, updated);
+        } catch (Exception e) {
+            log.error("Could not align id sequence {} with {}", sequenceTable, entityTable, e);
+        }
+    }
+}
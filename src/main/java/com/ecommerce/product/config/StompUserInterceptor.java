@@ -0,0 +1,80 @@
+package com.ecommerce.product.config;
+
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.util.StringUtils;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+import org.springframework.web.socket.server.support.DefaultHandshakeHandler;
+
+import java.security.Principal;
+import java.util.Map;
+
+/**
+ * Names the WebSocket session after the gateway-authenticated {@code X-User-Email}
+ * header of the HTTP handshake, the same identity the REST controllers trust, so
+ * replies can be routed to {@code /user/queue/bargain}. Nothing the client sends
+ * over STOMP is used: a CONNECT frame on a connection whose handshake carried no
+ * user is rejected.
+ */
+public class StompUserInterceptor implements ChannelInterceptor {
+
+    static final String USER_ATTRIBUTE = StompUserInterceptor.class.getName() + ".user";
+
+    record StompPrincipal(String name) implements Principal {
+        @Override
+        public String getName() {
+            return name;
+        }
+    }
+
+    /** Captures the handshake's user for every SockJS transport, including the HTTP fallbacks. */
+    public static class GatewayUserHandshakeInterceptor implements HandshakeInterceptor {
+        @Override
+        public boolean beforeHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                WebSocketHandler wsHandler, Map<String, Object> attributes) {
+            String email = request.getHeaders().getFirst("X-User-Email");
+            if (StringUtils.hasText(email)) {
+                attributes.put(USER_ATTRIBUTE, new StompPrincipal(email));
+            }
+            return true;
+        }
+
+        @Override
+        public void afterHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                WebSocketHandler wsHandler, Exception exception) {
+        }
+    }
+
+    /** Makes the handshake's user the principal of native WebSocket sessions. */
+    public static class GatewayUserHandshakeHandler extends DefaultHandshakeHandler {
+        @Override
+        protected Principal determineUser(ServerHttpRequest request, WebSocketHandler wsHandler,
+                Map<String, Object> attributes) {
+            return (Principal) attributes.get(USER_ATTRIBUTE);
+        }
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || !StompCommand.CONNECT.equals(accessor.getCommand()) || accessor.getUser() != null) {
+            return message;
+        }
+        // SockJS HTTP transports take no principal from the handshake handler, only the captured attribute
+        Map<String, Object> attributes = accessor.getSessionAttributes();
+        Principal user = attributes != null ? (Principal) attributes.get(USER_ATTRIBUTE) : null;
+        if (user == null) {
+            throw new MessageDeliveryException(message, "Bargaining requires a signed-in user");
+        }
+        accessor.setUser(user);
+        return message;
+    }
+}
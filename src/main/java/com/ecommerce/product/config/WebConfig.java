@@ -1,18 +1,23 @@
 package com.ecommerce.product.config;
 
+import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
-import java.nio.file.Path;
-import java.nio.file.Paths;
-
+/**
+ * Registers the bargaining rate-limit interceptor on the HTTP bargaining endpoint,
+ * so REST turns are admitted by the same buckets as STOMP messages.
+ */
 @Configuration
+@RequiredArgsConstructor
 public class WebConfig implements WebMvcConfigurer {
 
+    private final BargainRateLimitHandlerInterceptor bargainRateLimitHandlerInterceptor;
+
     @Override
-    public void addResourceHandlers(ResourceHandlerRegistry registry) {
-        registry.addResourceHandler("/uploads/**", "/api/products/uploads/**")
-                .addResourceLocations("file:uploads/");
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(bargainRateLimitHandlerInterceptor)
+                .addPathPatterns("/api/products/bargain");
     }
 }
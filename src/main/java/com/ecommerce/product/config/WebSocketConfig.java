@@ -1,25 +1,101 @@
 package com.ecommerce.product.config;
 
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
 
+/**
+ * STOMP over SockJS. Replies go to per-user queues ({@code /user/queue/...}); the
+ * session's user comes from the gateway's {@code X-User-Email} header on the
+ * handshake (see {@link StompUserInterceptor}).
+ * Each instance runs an in-memory broker; with {@code bargain.websocket.broker=redis}
+ * replies are relayed between instances over Redis pub/sub (see
+ * {@link BargainRelayConfig}). Channel work runs on virtual threads, so the pools
+ * are sized for concurrency rather than CPU count.
+ */
 @Configuration
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    @Value("${bargain.websocket.inbound.concurrency:64}")
+    private int inboundConcurrency;
+
+    @Value("${bargain.websocket.outbound.concurrency:64}")
+    private int outboundConcurrency;
+
+    @Value("${bargain.websocket.queue-capacity:10000}")
+    private int queueCapacity;
+
+    private final MeterRegistry meterRegistry;
+    private final BargainRateLimitChannelInterceptor bargainRateLimitChannelInterceptor;
+
+    public WebSocketConfig(MeterRegistry meterRegistry,
+            @Lazy BargainRateLimitChannelInterceptor bargainRateLimitChannelInterceptor) {
+        this.meterRegistry = meterRegistry;
+        this.bargainRateLimitChannelInterceptor = bargainRateLimitChannelInterceptor;
+    }
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
-        config.enableSimpleBroker("/topic");
+        config.enableSimpleBroker("/topic", "/queue");
         config.setApplicationDestinationPrefixes("/app");
+        config.setUserDestinationPrefix("/user");
+        config.setPreservePublishOrder(true); // Replies to one session stay in order despite the pool
     }
 
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
         registry.addEndpoint("/ws")
+                .setHandshakeHandler(new StompUserInterceptor.GatewayUserHandshakeHandler())
+                .addInterceptors(new StompUserInterceptor.GatewayUserHandshakeInterceptor())
                 .setAllowedOriginPatterns("*")
                 .withSockJS();
     }
+
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.executor(websocketInboundExecutor())
+                .interceptors(new StompUserInterceptor(), bargainRateLimitChannelInterceptor);
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        registration.executor(websocketOutboundExecutor());
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor websocketInboundExecutor() {
+        return channelExecutor("inbound", inboundConcurrency);
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor websocketOutboundExecutor() {
+        return channelExecutor("outbound", outboundConcurrency);
+    }
+
+    private ThreadPoolTaskExecutor channelExecutor(String channel, int concurrency) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(concurrency);
+        executor.setMaxPoolSize(concurrency);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setAllowCoreThreadTimeOut(true);
+        executor.setThreadFactory(Thread.ofVirtual().name("ws-" + channel + "-", 0).factory());
+        Gauge.builder("websocket.channel.queue.depth", executor,
+                e -> e.getThreadPoolExecutor().getQueue().size())
+                .tag("channel", channel)
+                .register(meterRegistry);
+        Gauge.builder("websocket.channel.active", executor, ThreadPoolTaskExecutor::getActiveCount)
+                .tag("channel", channel)
+                .register(meterRegistry);
+        return executor;
+    }
 }
@@ -3,11 +3,22 @@ package com.ecommerce.product.controller;
 import com.ecommerce.product.client.BargainServiceClient;
 import com.ecommerce.product.dto.BargainRequest;
 import com.ecommerce.product.dto.BargainResponse;
+import com.ecommerce.product.dto.ModelVersionInfo;
+import com.ecommerce.product.dto.ProductPricing;
+import com.ecommerce.product.dto.TrainingStatus;
+import com.ecommerce.product.exception.UnauthorizedException;
+import com.ecommerce.product.service.AgentBrain;
+import com.ecommerce.product.service.BargainAiGateway;
+import com.ecommerce.product.service.BargainingModel;
+import com.ecommerce.product.service.NegotiationSessionStore;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
 
+import java.math.BigDecimal;
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/products/bargain")
 @RequiredArgsConstructor
@@ -15,21 +26,66 @@ import org.springframework.web.bind.annotation.*;
 public class BargainAgentController {
 
     private final BargainServiceClient bargainServiceClient;
+    private final BargainingModel bargainingModel;
+    private final BargainAiGateway bargainAiGateway;
+    private final AgentBrain agentBrain;
+    private final NegotiationSessionStore negotiationSessionStore;
 
     @PostMapping
     @ResponseStatus(HttpStatus.OK)
     public BargainResponse bargain(@RequestBody BargainRequest request) {
-        log.info("Bargain request received but bargaining service is decommissioned: {}", request);
-        return BargainResponse.builder()
-                .accepted(false)
-                .responseMessage(
-                        "The bargaining service is currently unavailable. We are working on a better AI for you!")
-                .build();
+        log.info("Bargain request received ({} engine): {}", bargainAiGateway.getMode(), request);
+        if (request.getProductId() == null) {
+            return BargainResponse.builder()
+                    .accepted(false)
+                    .responseMessage("Which product would you like to talk about?")
+                    .build();
+        }
+
+        // Prices always come from our own snapshot, never from the client
+        ProductPricing pricing = negotiationSessionStore.pricing(request.getProductId());
+        request.setCurrentPrice(pricing.getPrice());
+        request.setMinPrice(pricing.getMinPrice() != null ? pricing.getMinPrice()
+                : pricing.getPrice().multiply(new BigDecimal("0.85")));
+        return bargainAiGateway.bargain(request, pricing).join();
     }
 
     @PostMapping("/train")
     @ResponseStatus(HttpStatus.OK)
-    public String train() {
+    public String train(@RequestHeader(value = "X-User-Role", required = false) String role) {
+        validateAdminRole(role);
+        if (bargainAiGateway.getMode() == BargainAiGateway.Mode.LOCAL) {
+            return agentBrain.trainAgent();
+        }
         return bargainServiceClient.train();
     }
+
+    @GetMapping("/train/status")
+    @ResponseStatus(HttpStatus.OK)
+    public TrainingStatus trainingStatus() {
+        return bargainingModel.getTrainingStatus();
+    }
+
+    @GetMapping("/model/versions")
+    @ResponseStatus(HttpStatus.OK)
+    public List<ModelVersionInfo> modelVersions() {
+        return bargainingModel.listVersions();
+    }
+
+    @PostMapping("/model/rollback/{version}")
+    @ResponseStatus(HttpStatus.OK)
+    public ModelVersionInfo rollback(@PathVariable long version,
+            @RequestHeader(value = "X-User-Role", required = false) String role,
+            @RequestHeader(value = "X-User-Email", required = false) String email) {
+        validateAdminRole(role);
+        log.info("Model rollback to v{} requested by {}", version, email);
+        return agentBrain.rollbackModel(version);
+    }
+
+    // The model serves every merchant's negotiations, so changing it is not a merchant operation
+    private void validateAdminRole(String role) {
+        if (!"ADMIN".equals(role)) {
+            throw new UnauthorizedException("Only administrators can change the bargaining model");
+        }
+    }
 }
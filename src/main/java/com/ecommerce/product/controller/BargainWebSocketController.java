@@ -1,106 +1,134 @@
 package com.ecommerce.product.controller;
 
-import com.ecommerce.product.client.BargainServiceClient;
 import com.ecommerce.product.dto.BargainRequest;
 import com.ecommerce.product.dto.BargainResponse;
+import com.ecommerce.product.dto.ProductPricing;
 import com.ecommerce.product.entity.BargainMessage;
-import com.ecommerce.product.entity.BargainSession;
-import com.ecommerce.product.entity.Product;
-import com.ecommerce.product.repository.BargainMessageRepository;
-import com.ecommerce.product.repository.BargainSessionRepository;
-import com.ecommerce.product.repository.ProductRepository;
+import com.ecommerce.product.service.BargainAiGateway;
+import com.ecommerce.product.service.BargainMetrics;
+import com.ecommerce.product.service.BargainReplySender;
+import com.ecommerce.product.service.NegotiationSession;
+import com.ecommerce.product.service.NegotiationSessionStore;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.messaging.handler.annotation.DestinationVariable;
 import org.springframework.messaging.handler.annotation.MessageMapping;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Controller;
 
 import java.math.BigDecimal;
+import java.security.Principal;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Controller
 @RequiredArgsConstructor
 @Slf4j
 public class BargainWebSocketController {
 
-    private final BargainSessionRepository sessionRepository;
-    private final BargainMessageRepository messageRepository;
-    private final ProductRepository productRepository;
-    private final BargainServiceClient bargainServiceClient;
-    private final SimpMessagingTemplate messagingTemplate;
+    private final NegotiationSessionStore negotiationSessionStore;
+    private final BargainAiGateway bargainAiGateway;
+    private final BargainReplySender bargainReplySender;
+    private final BargainMetrics metrics;
 
+    /**
+     * Returns as soon as the AI call is dispatched; the reply is recorded and sent
+     * from the gateway's callback, so a slow bargaining service never holds the
+     * inbound channel threads. The session, history and reply all belong to the
+     * connection's principal; the {@code userId} in the destination must name it.
+     */
     @MessageMapping("/bargain/{productId}/{userId}")
     public void handleBargainMessage(@DestinationVariable Long productId,
-            @DestinationVariable String userId,
-            BargainRequest clientRequest) {
+            @DestinationVariable("userId") String pathUserId,
+            BargainRequest clientRequest,
+            Principal principal) {
+        if (principal == null || !principal.getName().equals(pathUserId)) {
+            log.warn("Rejected bargain message for user {} on a connection authenticated as {}", pathUserId,
+                    principal != null ? principal.getName() : "nobody");
+            return;
+        }
+        String userId = principal.getName();
+        Timer.Sample turn = metrics.start();
         try {
             log.info("WebSocket bargain request from {}: {}", userId, clientRequest);
 
-            // 1. Get or Create Session
-            BargainSession session = sessionRepository.findByProductIdAndUserIdAndActiveTrue(productId, userId)
-                    .orElseGet(() -> sessionRepository.save(BargainSession.builder()
-                            .productId(productId)
-                            .userId(userId)
-                            .build()));
+            // 1. Get or Create Session (memory first)
+            long lookupStart = System.nanoTime();
+            NegotiationSession session = negotiationSessionStore.session(productId, userId);
 
-            // 2. Save User Message
+            // 2. Record User Message
             BargainMessage userMsg = BargainMessage.builder()
-                    .sessionId(session.getId())
+                    .sessionId(session.getSessionId())
                     .sender("USER")
                     .message(clientRequest.getMessage())
                     .proposedPrice(clientRequest.getProposedPrice())
                     .build();
-            messageRepository.save(userMsg);
+            session.append(toDto(userMsg));
 
             // 3. Prepare AI Request with History
-            Product product = productRepository.findById(productId).orElseThrow();
+            ProductPricing product = negotiationSessionStore.pricing(productId);
+            metrics.stage(BargainMetrics.Stage.SESSION_LOOKUP, lookupStart);
             BigDecimal minPrice = product.getMinPrice();
             if (minPrice == null)
                 minPrice = product.getPrice().multiply(new BigDecimal("0.85"));
 
-            List<BargainRequest.BargainMessageDTO> history = messageRepository
-                    .findBySessionIdOrderByTimestampAsc(session.getId())
-                    .stream()
-                    .map(m -> BargainRequest.BargainMessageDTO.builder()
-                            .sender(m.getSender())
-                            .message(m.getMessage())
-                            .proposedPrice(m.getProposedPrice())
-                            .build())
-                    .collect(Collectors.toList());
-
             BargainRequest aiRequest = BargainRequest.builder()
                     .productId(productId)
                     .currentPrice(product.getPrice())
                     .minPrice(minPrice)
                     .proposedPrice(clientRequest.getProposedPrice())
                     .message(clientRequest.getMessage())
-                    .sessionId(session.getId().toString())
-                    .history(history)
+                    .sessionId(session.getSessionId().toString())
+                    .history(session.history())
                     .build();
 
-            // 4. Call AI
-            BargainResponse aiResponse = bargainServiceClient.bargain(aiRequest);
+            // 4. Call AI (remote with deadline, local fallback)
+            Timer.Sample aiCall = metrics.start();
+            bargainAiGateway.bargain(aiRequest, product).whenComplete((aiResponse, error) -> {
+                metrics.stage(BargainMetrics.Stage.AI_CALL, aiCall);
+                if (error != null) {
+                    log.error("Error in WebSocket bargaining", error);
+                    negotiationSessionStore.persistAsync(List.of(userMsg));
+                    sendFailure(userId);
+                    metrics.turn(turn, false);
+                    return;
+                }
 
-            // 5. Save AI Response
-            BargainMessage aiMsg = BargainMessage.builder()
-                    .sessionId(session.getId())
-                    .sender("AI")
-                    .message(aiResponse.getResponseMessage())
-                    .proposedPrice(aiResponse.getCounterOffer())
-                    .build();
-            messageRepository.save(aiMsg);
+                // 5. Record AI Response; both messages are persisted in one write, off this thread
+                BargainMessage aiMsg = BargainMessage.builder()
+                        .sessionId(session.getSessionId())
+                        .sender("AI")
+                        .message(aiResponse.getResponseMessage())
+                        .proposedPrice(aiResponse.getCounterOffer())
+                        .build();
+                session.append(toDto(aiMsg));
+                negotiationSessionStore.persistAsync(List.of(userMsg, aiMsg));
 
-            // 6. Broadcast back to user
-            messagingTemplate.convertAndSend("/topic/bargain/" + userId, aiResponse);
+                // 6. Broadcast back to user
+                long broadcastStart = System.nanoTime();
+                bargainReplySender.send(userId, aiResponse);
+                metrics.stage(BargainMetrics.Stage.BROADCAST, broadcastStart);
+                metrics.turn(turn, true);
+            });
 
         } catch (Exception e) {
             log.error("Error in WebSocket bargaining", e);
-            messagingTemplate.convertAndSend("/topic/bargain/" + userId, BargainResponse.builder()
-                    .accepted(false)
-                    .responseMessage("My AI brain is a bit overwhelmed. Could you say that again?")
-                    .build());
+            sendFailure(userId);
+            metrics.turn(turn, false);
         }
     }
+
+    private void sendFailure(String userId) {
+        bargainReplySender.send(userId, BargainResponse.builder()
+                .accepted(false)
+                .responseMessage("My AI brain is a bit overwhelmed. Could you say that again?")
+                .build());
+    }
+
+    private BargainRequest.BargainMessageDTO toDto(BargainMessage message) {
+        return BargainRequest.BargainMessageDTO.builder()
+                .sender(message.getSender())
+                .message(message.getMessage())
+                .proposedPrice(message.getProposedPrice())
+                .build();
+    }
 }
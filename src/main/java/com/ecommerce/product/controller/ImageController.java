@@ -0,0 +1,57 @@
+package com.ecommerce.product.controller;
+
+import com.ecommerce.product.dto.ImageStoreStats;
+import com.ecommerce.product.exception.ResourceNotFoundException;
+import com.ecommerce.product.service.FileStorageService;
+import com.ecommerce.product.service.ImageVariant;
+import com.ecommerce.product.service.ZeroCopyFileServer;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+
+@RestController
+@RequestMapping("/api/products/images")
+@RequiredArgsConstructor
+public class ImageController {
+
+    private final FileStorageService fileStorageService;
+    private final ZeroCopyFileServer fileServer;
+
+    @GetMapping("/stats")
+    @ResponseStatus(HttpStatus.OK)
+    public ImageStoreStats getStats() {
+        return fileStorageService.getStats();
+    }
+
+    /**
+     * Serves a resized variant (thumbnail, card, full) of a stored image. Content is
+     * addressed by hash, so a variant never changes: it gets a strong ETag and an
+     * immutable, year-long Cache-Control. Until the variant has been generated the
+     * original is served with no-cache so clients pick up the variant later.
+     */
+    @GetMapping("/{hash:[0-9a-f]{64}}/{variant}")
+    public void getVariant(@PathVariable String hash, @PathVariable String variant,
+            HttpServletRequest request, HttpServletResponse response) throws IOException {
+        ImageVariant imageVariant = ImageVariant.fromPathName(variant);
+        if (imageVariant == null) {
+            throw new ResourceNotFoundException("Unknown image variant: " + variant);
+        }
+
+        if (fileServer.serve(fileStorageService.variantPath(hash, imageVariant), hash + "-" + imageVariant.pathName(),
+                CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable(), request, response)) {
+            return;
+        }
+
+        Path original = fileStorageService.findBlob(hash);
+        if (original == null || !fileServer.serve(original, hash, CacheControl.noCache(), request, response)) {
+            throw new ResourceNotFoundException("Image not found: " + hash);
+        }
+    }
+}
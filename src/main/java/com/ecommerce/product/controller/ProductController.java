@@ -1,13 +1,31 @@
 package com.ecommerce.product.controller;
 
+import com.ecommerce.product.dto.BulkImportResponse;
+import com.ecommerce.product.dto.ProductPageResponse;
 import com.ecommerce.product.dto.ProductRequest;
 import com.ecommerce.product.dto.ProductResponse;
+import com.ecommerce.product.dto.ProductSummary;
+import com.ecommerce.product.dto.StockLevel;
+import com.ecommerce.product.dto.StockReservationResponse;
 import com.ecommerce.product.dto.CustomizationRequest;
+import com.ecommerce.product.entity.CategoryType;
+import com.ecommerce.product.entity.Gender;
+import com.ecommerce.product.exception.UnauthorizedException;
+import com.ecommerce.product.service.ProductImportReader;
 import com.ecommerce.product.service.ProductService;
+import com.ecommerce.product.service.ProductViewTracker;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
 import java.util.List;
 
 @RestController
@@ -16,6 +34,8 @@ import java.util.List;
 public class ProductController {
 
     private final ProductService productService;
+    private final ProductViewTracker productViewTracker;
+    private final ProductImportReader productImportReader;
 
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
@@ -27,15 +47,51 @@ public class ProductController {
         return productService.createProduct(productRequest);
     }
 
+    @PostMapping(value = "/bulk", consumes = { MediaType.APPLICATION_JSON_VALUE, ProductImportReader.NDJSON,
+            ProductImportReader.CSV })
+    @ResponseStatus(HttpStatus.OK)
+    public BulkImportResponse importProducts(InputStream body,
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            @RequestHeader(value = "X-User-Role", required = false) String role,
+            @RequestHeader(value = "X-User-Email", required = false) String email) throws IOException {
+        validateMerchantRole(role);
+        return productService.importProducts(productImportReader.read(body, MediaType.parseMediaType(contentType)),
+                email);
+    }
+
     @GetMapping
     @ResponseStatus(HttpStatus.OK)
-    public List<ProductResponse> getAllProducts() {
+    public List<ProductSummary> getAllProducts() {
         return productService.getAllProducts();
     }
 
+    @GetMapping("/page")
+    @ResponseStatus(HttpStatus.OK)
+    public ProductPageResponse getProductPage(
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) CategoryType category,
+            @RequestParam(required = false) Gender gender,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(defaultValue = "false") boolean inStock) {
+        return productService.getProductPage(size, after, category, gender, minPrice, maxPrice, inStock);
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportProducts(
+            @RequestParam(defaultValue = "ndjson") String format) {
+        boolean csv = "csv".equalsIgnoreCase(format);
+        StreamingResponseBody body = out -> productService.exportProducts(csv, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(csv ? ProductImportReader.CSV : ProductImportReader.NDJSON))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=products." + (csv ? "csv" : "ndjson"))
+                .body(body);
+    }
+
     @GetMapping("/vendor")
     @ResponseStatus(HttpStatus.OK)
-    public List<ProductResponse> getProductsByVendor(
+    public List<ProductSummary> getProductsByVendor(
             @RequestHeader(value = "X-User-Role", required = false) String role,
             @RequestHeader(value = "X-User-Email", required = false) String email) {
         validateMerchantRole(role);
@@ -45,7 +101,9 @@ public class ProductController {
     @GetMapping("/{id}")
     @ResponseStatus(HttpStatus.OK)
     public ProductResponse getProductById(@PathVariable Long id) {
-        return productService.getProductById(id);
+        ProductResponse product = productService.getProductById(id);
+        productViewTracker.record(product); // Tracked here so cache hits count too
+        return product;
     }
 
     @PutMapping("/{id}")
@@ -57,6 +115,15 @@ public class ProductController {
         return productService.updateProduct(id, productRequest, email);
     }
 
+    @PutMapping(value = "/{id}/image", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @ResponseStatus(HttpStatus.OK)
+    public ProductResponse uploadProductImage(@PathVariable Long id, @RequestParam("image") MultipartFile image,
+            @RequestHeader(value = "X-User-Role", required = false) String role,
+            @RequestHeader(value = "X-User-Email", required = false) String email) {
+        validateMerchantRole(role);
+        return productService.uploadProductImage(id, image, email);
+    }
+
     @DeleteMapping("/{id}")
     @ResponseStatus(HttpStatus.NO_CONTENT)
     public void deleteProduct(@PathVariable Long id,
@@ -66,6 +133,36 @@ public class ProductController {
         productService.deleteProduct(id, email);
     }
 
+    @GetMapping("/{id}/stock")
+    @ResponseStatus(HttpStatus.OK)
+    public StockLevel getStockLevel(@PathVariable Long id) {
+        return productService.getStockLevel(id);
+    }
+
+    @PostMapping("/{id}/stock/reserve")
+    @ResponseStatus(HttpStatus.OK)
+    public StockReservationResponse reserveStock(@PathVariable Long id, @RequestParam int quantity,
+            @RequestHeader(value = "X-User-Email", required = false) String email) {
+        validateCaller(email);
+        return productService.reserveStock(id, quantity, email);
+    }
+
+    @PostMapping("/{id}/stock/commit")
+    @ResponseStatus(HttpStatus.OK)
+    public StockLevel commitStock(@PathVariable Long id, @RequestParam String token,
+            @RequestHeader(value = "X-User-Email", required = false) String email) {
+        validateCaller(email);
+        return productService.commitStock(id, token, email);
+    }
+
+    @PostMapping("/{id}/stock/release")
+    @ResponseStatus(HttpStatus.OK)
+    public StockLevel releaseStock(@PathVariable Long id, @RequestParam String token,
+            @RequestHeader(value = "X-User-Email", required = false) String email) {
+        validateCaller(email);
+        return productService.releaseStock(id, token, email);
+    }
+
     @PostMapping("/{id}/customization")
     @ResponseStatus(HttpStatus.OK)
     public void saveCustomization(@PathVariable Long id,
@@ -75,6 +172,13 @@ public class ProductController {
                 request.getDesignInstructions());
     }
 
+    // Reservations belong to the caller that made them, so stock moves need a known caller
+    private void validateCaller(String email) {
+        if (email == null || email.isBlank()) {
+            throw new UnauthorizedException("Stock reservations require a signed-in caller");
+        }
+    }
+
     private void validateMerchantRole(String role) {
         if (!"MERCHANT".equals(role)) {
             throw new RuntimeException("Only merchants can perform this operation");
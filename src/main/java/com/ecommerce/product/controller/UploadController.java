@@ -0,0 +1,66 @@
+package com.ecommerce.product.controller;
+
+import com.ecommerce.product.exception.ResourceNotFoundException;
+import com.ecommerce.product.service.FileStorageService;
+import com.ecommerce.product.service.ZeroCopyFileServer;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.util.UriUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+
+@RestController
+@RequiredArgsConstructor
+public class UploadController {
+
+    private static final String[] PREFIXES = { "/api/products/uploads/", "/uploads/" };
+
+    private final FileStorageService fileStorageService;
+    private final ZeroCopyFileServer fileServer;
+
+    /**
+     * Serves merchant images and customer designs from the uploads directory.
+     * Content-addressed blobs never change once written and are cached for a year;
+     * everything else revalidates hourly against its ETag.
+     */
+    @RequestMapping(value = { "/uploads/**", "/api/products/uploads/**" },
+            method = { RequestMethod.GET, RequestMethod.HEAD })
+    public void serve(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String relative = relativePath(request);
+        Path root = fileStorageService.uploadRoot();
+        Path file = root.resolve(relative).normalize();
+        if (relative.isEmpty() || !file.startsWith(root)) {
+            throw new ResourceNotFoundException("File not found: " + relative);
+        }
+
+        CacheControl cacheControl = relative.startsWith("blobs/")
+                ? CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable()
+                : CacheControl.maxAge(Duration.ofHours(1)).cachePublic();
+        if (!fileServer.serve(file, cacheControl, request, response)) {
+            throw new ResourceNotFoundException("File not found: " + relative);
+        }
+    }
+
+    private String relativePath(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        for (String prefix : PREFIXES) {
+            if (path.startsWith(prefix)) {
+                String relative = UriUtils.decode(path.substring(prefix.length()), StandardCharsets.UTF_8);
+                // Reject traversal and absolute paths before they ever reach the filesystem
+                if (relative.contains("..") || relative.startsWith("/") || relative.indexOf('\0') >= 0) {
+                    return "";
+                }
+                return relative;
+            }
+        }
+        return "";
+    }
+}
@@ -0,0 +1,16 @@
+package com.ecommerce.product.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** A reply addressed to one user, as relayed between instances. */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class BargainReply {
+    private String userId;
+    private BargainResponse response;
+}
@@ -1,5 +1,6 @@
 package com.ecommerce.product.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -14,4 +15,8 @@ public class BargainResponse {
     private boolean accepted;
     private BigDecimal counterOffer;
     private String responseMessage;
+
+    // Intent mask the local engine classified the message with, for metrics; never sent to clients
+    @JsonIgnore
+    private int intents;
 }
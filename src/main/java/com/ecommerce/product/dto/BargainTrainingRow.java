@@ -0,0 +1,24 @@
+package com.ecommerce.product.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.math.BigDecimal;
+
+/**
+ * The columns of {@link com.ecommerce.product.entity.BargainHistory} the bargaining
+ * model trains on. Selected through a JPQL constructor expression so paging through
+ * history reads neither message text nor managed entities.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BargainTrainingRow {
+    private Long id;
+    private BigDecimal productPrice;
+    private BigDecimal productMinPrice;
+    private BigDecimal proposedPrice;
+    private Integer messageLength;
+    private boolean accepted;
+    private Boolean trained;
+}
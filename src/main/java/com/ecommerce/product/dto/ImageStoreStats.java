@@ -0,0 +1,21 @@
+package com.ecommerce.product.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ImageStoreStats {
+    private long blobCount;
+    private long storedBytes;
+    private long orphanedBlobs; // Unreferenced, awaiting garbage collection
+    // Since this instance started
+    private long uploads;
+    private long dedupHits;
+    private double dedupHitRate;
+    private long bytesSaved;
+}
@@ -0,0 +1,20 @@
+package com.ecommerce.product.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ModelVersionInfo {
+    private long version;
+    private long watermark;
+    private Instant createdAt;
+    private long sizeBytes;
+    private boolean serving;
+}
@@ -21,6 +21,7 @@ public class ProductEvent {
     private String gender;
     private Integer stockQuantity;
     private String imageUrl;
+    private String vendorEmail;
     private String eventType; // CREATE, UPDATE, DELETE
     private long timestamp;
 }
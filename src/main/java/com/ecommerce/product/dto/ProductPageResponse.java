@@ -0,0 +1,20 @@
+package com.ecommerce.product.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.io.Serializable;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ProductPageResponse implements Serializable {
+    private static final long serialVersionUID = 1L;
+    private List<ProductSummary> content;
+    private int size;
+    private boolean hasNext;
+    private Long nextCursor; // Pass as "after" to fetch the next page
+}
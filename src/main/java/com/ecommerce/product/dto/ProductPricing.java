@@ -0,0 +1,26 @@
+package com.ecommerce.product.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * The fields of a product a negotiation needs, snapshotted so bargaining turns do
+ * not reload the product row. {@code minPrice} is as stored and may be null.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ProductPricing implements Serializable {
+    private static final long serialVersionUID = 1L;
+    private Long productId;
+    private String name;
+    private BigDecimal price;
+    private BigDecimal minPrice;
+    private LocalDateTime createdAt;
+}
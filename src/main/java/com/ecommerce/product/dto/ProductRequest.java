@@ -23,4 +23,5 @@ public class ProductRequest {
     private String imageUrl;
     private BigDecimal minPrice;
     private String vendorEmail;
+    private Long version; // Version the client last read; required on update, a stale one is rejected with 409
 }
@@ -2,6 +2,7 @@ package com.ecommerce.product.dto;
 
 import com.ecommerce.product.entity.CategoryType;
 import com.ecommerce.product.entity.Gender;
+import com.ecommerce.product.entity.ImageStatus;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -25,7 +26,11 @@ public class ProductResponse implements Serializable {
     private CategoryType category;
     private Gender gender;
     private String imageUrl;
+    private String thumbnailUrl;
+    private ImageStatus imageStatus;
     private java.time.LocalDateTime createdAt;
     private BigDecimal minPrice;
     private String vendorEmail;
+    private Integer reservedQuantity;
+    private Long version;
 }
@@ -0,0 +1,39 @@
+package com.ecommerce.product.dto;
+
+import com.ecommerce.product.entity.CategoryType;
+import com.ecommerce.product.entity.Gender;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.io.Serializable;
+import java.math.BigDecimal;
+
+/**
+ * List-view projection of {@link com.ecommerce.product.entity.Product}. Selected
+ * through JPQL constructor expressions so the LONGTEXT imageUrl column is never
+ * read; list pages link to {@code thumbnailUrl} instead.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductSummary implements Serializable {
+    private static final long serialVersionUID = 1L;
+    private Long id;
+    private String sku;
+    private String name;
+    private BigDecimal price;
+    private Integer stockQuantity;
+    private CategoryType category;
+    private Gender gender;
+    private String thumbnailUrl;
+
+    // For frontend compatibility
+    public Integer getStock() {
+        return stockQuantity;
+    }
+
+    // For frontend compatibility: list cards read imageUrl
+    public String getImageUrl() {
+        return thumbnailUrl;
+    }
+}
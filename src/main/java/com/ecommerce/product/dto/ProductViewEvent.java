@@ -14,4 +14,5 @@ public class ProductViewEvent {
     private String sku;
     private String productName;
     private Long timestamp;
+    private Long viewCount; // Views of this product aggregated since the previous event
 }
@@ -0,0 +1,19 @@
+package com.ecommerce.product.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockEvent {
+    private Long productId;
+    private String vendorEmail;
+    private Integer available;
+    private Integer reserved;
+    private Long version; // Product row version after the move, for ordering by consumers
+    private long timestamp;
+}
@@ -0,0 +1,21 @@
+package com.ecommerce.product.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class StockLevel {
+    private Long productId;
+    private Integer available;
+    private Integer reserved;
+    private Long version;
+
+    @JsonIgnore
+    private String vendorEmail; // For cache eviction only
+}
@@ -0,0 +1,17 @@
+package com.ecommerce.product.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class StockReservationResponse {
+    private String token; // Present it to commit or release the reservation
+    private Long productId;
+    private Integer quantity;
+    private StockLevel stock; // Stock right after this reservation
+}
@@ -0,0 +1,41 @@
+package com.ecommerce.product.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder(toBuilder = true)
+public class TrainingStatus {
+
+    public enum State {
+        IDLE, RUNNING, SUCCEEDED, SKIPPED, FAILED
+    }
+
+    public enum Mode {
+        FULL, INCREMENTAL
+    }
+
+    private State state;
+    private Mode mode;
+    private long servingVersion; // Model version answering predictions right now
+    private Long trainingVersion; // Version being produced by the current or last run
+    private long watermark; // Highest bargain_history id the serving model has seen
+    private int samples;
+    private Integer validationSamples; // Held out for early stopping
+    private Integer epochs;
+    private Integer bestEpoch;
+    private Boolean stoppedEarly;
+    private List<Double> trainLoss; // Mean squared error per epoch
+    private List<Double> validationLoss;
+    private Instant startedAt;
+    private Instant finishedAt;
+    private Long durationMs;
+    private String message;
+}
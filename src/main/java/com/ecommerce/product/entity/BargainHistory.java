@@ -5,20 +5,20 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
-import org.hibernate.annotations.CreationTimestamp;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "bargain_history")
+@Table(name = "bargain_history", indexes = @Index(name = "idx_bargain_history_trained_id", columnList = "trained, id"))
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
 @Builder
 public class BargainHistory {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "bargain_history_seq")
+    @SequenceGenerator(name = "bargain_history_seq", sequenceName = "bargain_history_seq", allocationSize = 50)
     private Long id;
 
     private Long productId;
@@ -29,6 +29,24 @@ public class BargainHistory {
     private BigDecimal productMinPrice;
     private boolean accepted;
 
-    @CreationTimestamp
     private LocalDateTime createdAt;
+
+    // Ids are not committed in id order (pooled blocks per instance, write-behind, spool replay), so
+    // incremental training selects rows by this flag instead of by an id watermark. Null only on rows
+    // older than the column, until startup classifies them.
+    private Boolean trained;
+
+    // Model version whose run flagged the row, so a rollback can offer it to training again
+    private Long trainedVersion;
+
+    // Set when the record is made, not when a write-behind batch reaches the database
+    @PrePersist
+    protected void onCreate() {
+        if (createdAt == null) {
+            createdAt = LocalDateTime.now();
+        }
+        if (trained == null) {
+            trained = false;
+        }
+    }
 }
@@ -14,7 +14,8 @@ import java.time.LocalDateTime;
 @Builder
 public class BargainMessage {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "bargain_message_seq")
+    @SequenceGenerator(name = "bargain_message_seq", sequenceName = "bargain_message_seq", allocationSize = 50)
     private Long id;
 
     private Long sessionId;
@@ -0,0 +1,36 @@
+package com.ecommerce.product.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * One stored image file, keyed by the SHA-256 of its bytes. refCount is the number
+ * of products whose imageUrl points at it; blobs left at zero past a grace period
+ * are garbage-collected. The collector first sets refCount to -1, which keeps
+ * uploads and retains off the blob until its files and row are gone.
+ */
+@Entity
+@Table(name = "image_blobs", indexes = @Index(name = "idx_image_blobs_ref_count", columnList = "refCount, releasedAt"))
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ImageBlob {
+    @Id
+    @Column(length = 64)
+    private String hash;
+
+    @Column(length = 8)
+    private String extension;
+
+    private long sizeBytes;
+    private int refCount;
+    private LocalDateTime createdAt;
+    private LocalDateTime releasedAt; // Last release or upload, starts the GC grace period
+    private boolean variantsReady; // Resized variants have been generated (or the format cannot be decoded)
+}
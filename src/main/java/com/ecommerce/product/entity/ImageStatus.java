@@ -0,0 +1,8 @@
+package com.ecommerce.product.entity;
+
+public enum ImageStatus {
+    NONE,
+    PENDING, // Upload accepted, still being written to storage
+    READY,
+    FAILED
+}
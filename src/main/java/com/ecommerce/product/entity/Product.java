@@ -8,26 +8,43 @@ import lombok.NoArgsConstructor;
 import java.math.BigDecimal;
 
 @Entity
-@Table(name = "products")
+@Table(name = "products", indexes = {
+        @Index(name = "idx_products_category_gender_id", columnList = "category, gender, id"),
+        @Index(name = "idx_products_category_id", columnList = "category, id"),
+        @Index(name = "idx_products_gender_id", columnList = "gender, id")
+})
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
 @Builder
 public class Product {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
-    private Long id;
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "product_seq")
+    @SequenceGenerator(name = "product_seq", sequenceName = "product_seq", allocationSize = 50)
+    private Long id; // Pooled sequence (a table on MySQL) so inserts can be JDBC-batched
 
     @Column(unique = true, nullable = false)
     private String sku;
     private String name;
     private String description;
     private BigDecimal price;
-    private Integer stockQuantity;
+    private Integer stockQuantity; // Available to sell; reservations have already been taken out
+
+    @Builder.Default
+    private Integer reservedQuantity = 0; // Held by open reservations, not yet committed or released
+
+    @Version
+    private Long version; // Optimistic lock for entity writes; stock UPDATEs bump it too
 
     @Lob
     @Column(columnDefinition = "LONGTEXT")
     private String imageUrl;
+
+    @Column(length = 1024)
+    private String thumbnailUrl; // Short link used by list views, never an inline data URI
+
+    @Enumerated(EnumType.STRING)
+    private ImageStatus imageStatus;
     private java.time.LocalDateTime createdAt;
     private BigDecimal minPrice;
     private String vendorEmail;
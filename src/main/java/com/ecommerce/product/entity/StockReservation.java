@@ -0,0 +1,42 @@
+package com.ecommerce.product.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.LocalDateTime;
+
+/**
+ * Units held for one caller. The row exists while the reservation is open and is
+ * deleted when its owner commits or releases it by presenting the token, or when
+ * it expires and the sweeper returns its units to available stock.
+ */
+@Entity
+@Table(name = "stock_reservations",
+        indexes = {
+                @Index(name = "idx_stock_reservations_product_id", columnList = "productId"),
+                @Index(name = "idx_stock_reservations_created_at", columnList = "createdAt")
+        })
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StockReservation {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, unique = true, length = 36)
+    private String token;
+
+    @Column(nullable = false)
+    private Long productId;
+
+    @Column(nullable = false)
+    private Integer quantity;
+
+    @Column(nullable = false)
+    private String owner; // X-User-Email of the caller that reserved
+
+    @Builder.Default
+    private LocalDateTime createdAt = LocalDateTime.now(); // Expires product.stock.reservation-ttl after this
+}
@@ -1,12 +1,57 @@
 package com.ecommerce.product.repository;
 
+import com.ecommerce.product.dto.BargainTrainingRow;
 import com.ecommerce.product.entity.BargainHistory;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface BargainHistoryRepository extends JpaRepository<BargainHistory, Long> {
     List<BargainHistory> findByProductId(Long productId);
+
+    String TRAINING_ROW_SELECT = "SELECT new com.ecommerce.product.dto.BargainTrainingRow(h.id, h.productPrice,"
+            + " h.productMinPrice, h.proposedPrice, LENGTH(h.userMessage), h.accepted, h.trained)"
+            + " FROM BargainHistory h";
+
+    // Keyset page over the primary key: every page is an index range scan however deep it goes
+    @Query(TRAINING_ROW_SELECT + " WHERE h.id > :after ORDER BY h.id")
+    List<BargainTrainingRow> findTrainingRows(@Param("after") long after, Limit limit);
+
+    // Rows no published model has seen, wherever their ids fall; a range scan on (trained, id)
+    @Query(TRAINING_ROW_SELECT + " WHERE h.trained = false AND h.id > :after ORDER BY h.id")
+    List<BargainTrainingRow> findUntrainedRows(@Param("after") long after, Limit limit);
+
+    // Replay source: already-trained rows in an id range
+    @Query(TRAINING_ROW_SELECT + " WHERE h.trained = true AND h.id > :after AND h.id <= :upTo ORDER BY h.id")
+    List<BargainTrainingRow> findTrainedRowsBetween(@Param("after") long after, @Param("upTo") long upTo,
+            Limit limit);
+
+    long countByTrainedFalse();
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE BargainHistory h SET h.trained = true, h.trainedVersion = :version WHERE h.id IN :ids")
+    int markTrained(@Param("ids") Collection<Long> ids, @Param("version") long version);
+
+    // After a rollback, rows only a discarded version learned from are untrained again
+    @Modifying
+    @Transactional
+    @Query("UPDATE BargainHistory h SET h.trained = false, h.trainedVersion = NULL"
+            + " WHERE h.trained = true AND h.trainedVersion > :version")
+    int unmarkTrainedAfter(@Param("version") long version);
+
+    // Rows from before the trained column: those under the serving model's id watermark were trained on
+    @Modifying
+    @Transactional
+    @Query("UPDATE BargainHistory h SET h.trained = CASE WHEN h.id <= :watermark THEN true ELSE false END"
+            + " WHERE h.trained IS NULL")
+    int classifyLegacyRows(@Param("watermark") long watermark);
 }
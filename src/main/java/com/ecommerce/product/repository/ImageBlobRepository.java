@@ -0,0 +1,70 @@
+package com.ecommerce.product.repository;
+
+import com.ecommerce.product.entity.ImageBlob;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface ImageBlobRepository extends JpaRepository<ImageBlob, String> {
+
+    /*
+     * Inserts the blob or, if it is already known, restarts its GC grace period so a
+     * re-upload of an orphaned image cannot be collected before the product retains
+     * it. A blob already claimed by the collector (refCount -1) is left alone.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO image_blobs (hash, extension, size_bytes, ref_count, created_at, released_at,"
+            + " variants_ready) VALUES (:hash, :extension, :sizeBytes, 0, NOW(), NOW(), false)"
+            + " ON DUPLICATE KEY UPDATE released_at = IF(ref_count >= 0, NOW(), released_at)", nativeQuery = true)
+    int register(@Param("hash") String hash, @Param("extension") String extension,
+            @Param("sizeBytes") long sizeBytes);
+
+    boolean existsByHashAndRefCountLessThan(String hash, int refCount);
+
+    // Zero rows means the blob is gone or being collected
+    @Modifying
+    @Transactional
+    @Query("UPDATE ImageBlob b SET b.refCount = b.refCount + 1 WHERE b.hash = :hash AND b.refCount >= 0")
+    int retain(@Param("hash") String hash);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE ImageBlob b SET b.refCount = b.refCount - 1, b.releasedAt = CURRENT_TIMESTAMP"
+            + " WHERE b.hash = :hash AND b.refCount > 0")
+    int release(@Param("hash") String hash);
+
+    // Includes blobs claimed by a sweep that died before finishing
+    @Query("SELECT b FROM ImageBlob b WHERE b.refCount <= 0 AND b.releasedAt < :cutoff")
+    List<ImageBlob> findOrphans(@Param("cutoff") LocalDateTime cutoff, Limit limit);
+
+    // Guards against a retain or re-upload that landed after the orphan scan
+    @Modifying
+    @Transactional
+    @Query("UPDATE ImageBlob b SET b.refCount = -1 WHERE b.hash = :hash AND b.refCount <= 0"
+            + " AND b.releasedAt < :cutoff")
+    int claimOrphan(@Param("hash") String hash, @Param("cutoff") LocalDateTime cutoff);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM ImageBlob b WHERE b.hash = :hash AND b.refCount = -1")
+    int deleteClaimed(@Param("hash") String hash);
+
+    List<ImageBlob> findByVariantsReadyFalse(Limit limit);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE ImageBlob b SET b.variantsReady = true WHERE b.hash = :hash")
+    int markVariantsReady(@Param("hash") String hash);
+
+    long countByRefCount(int refCount);
+
+    @Query("SELECT COALESCE(SUM(b.sizeBytes), 0) FROM ImageBlob b")
+    long sumSizeBytes();
+}
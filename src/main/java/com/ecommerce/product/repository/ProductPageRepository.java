@@ -0,0 +1,23 @@
+package com.ecommerce.product.repository;
+
+import com.ecommerce.product.dto.ProductSummary;
+import com.ecommerce.product.entity.CategoryType;
+import com.ecommerce.product.entity.Gender;
+import org.springframework.data.domain.Limit;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/** Keyset paging over the catalog, mixed into {@link ProductRepository}. */
+public interface ProductPageRepository {
+
+    /**
+     * Keyset page over the catalog, newest first. Every filter is optional (null
+     * disables it) and {@code after} is the last id of the previous page. Only the
+     * filters actually given end up in the WHERE clause, so MySQL can pick the
+     * composite index of {@link com.ecommerce.product.entity.Product} that matches
+     * them instead of planning for the catch-all case.
+     */
+    List<ProductSummary> findPage(Long after, CategoryType category, Gender gender, BigDecimal minPrice,
+            BigDecimal maxPrice, boolean inStock, Limit limit);
+}
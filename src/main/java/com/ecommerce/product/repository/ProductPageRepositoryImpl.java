@@ -0,0 +1,68 @@
+package com.ecommerce.product.repository;
+
+import com.ecommerce.product.dto.ProductSummary;
+import com.ecommerce.product.entity.CategoryType;
+import com.ecommerce.product.entity.Gender;
+import com.ecommerce.product.entity.Product;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.Limit;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+class ProductPageRepositoryImpl implements ProductPageRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<ProductSummary> findPage(Long after, CategoryType category, Gender gender, BigDecimal minPrice,
+            BigDecimal maxPrice, boolean inStock, Limit limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ProductSummary> query = cb.createQuery(ProductSummary.class);
+        Root<Product> p = query.from(Product.class);
+
+        // Same columns as ProductRepository.SUMMARY_SELECT; imageUrl is never read
+        query.select(cb.construct(ProductSummary.class, p.get("id"), p.get("sku"), p.get("name"), p.get("price"),
+                p.get("stockQuantity"), p.get("category"), p.get("gender"), p.get("thumbnailUrl")));
+
+        // Equality filters first: (category, gender, id), (category, id) and (gender, id) then serve the
+        // id range and the ORDER BY straight from the index. Price and stock are checked on the rows that
+        // index scan visits; no index can serve a price range and ORDER BY id together, so a page filtered
+        // only by price walks the primary key until it fills, and a narrow price range over a large catalog
+        // may filesort instead
+        List<Predicate> where = new ArrayList<>(6);
+        if (category != null) {
+            where.add(cb.equal(p.get("category"), category));
+        }
+        if (gender != null) {
+            where.add(cb.equal(p.get("gender"), gender));
+        }
+        if (minPrice != null) {
+            where.add(cb.greaterThanOrEqualTo(p.get("price"), minPrice));
+        }
+        if (maxPrice != null) {
+            where.add(cb.lessThanOrEqualTo(p.get("price"), maxPrice));
+        }
+        if (inStock) {
+            where.add(cb.greaterThan(p.get("stockQuantity"), 0));
+        }
+        if (after != null) {
+            where.add(cb.lessThan(p.get("id"), after));
+        }
+        query.where(where.toArray(Predicate[]::new));
+        query.orderBy(cb.desc(p.get("id")));
+
+        var typed = entityManager.createQuery(query);
+        if (limit.isLimited()) {
+            typed.setMaxResults(limit.max());
+        }
+        return typed.getResultList();
+    }
+}
@@ -1,12 +1,103 @@
 package com.ecommerce.product.repository;
 
+import com.ecommerce.product.dto.ProductSummary;
+import com.ecommerce.product.dto.StockLevel;
+import com.ecommerce.product.entity.ImageStatus;
 import com.ecommerce.product.entity.Product;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
-public interface ProductRepository extends JpaRepository<Product, Long> {
+public interface ProductRepository extends JpaRepository<Product, Long>, ProductPageRepository {
     Optional<Product> findBySku(String sku);
 
     List<Product> findByVendorEmail(String vendorEmail);
+
+    List<Product> findBySkuIn(Collection<String> skus);
+
+    /**
+     * Forward-only scan of the whole catalog for exports. A fetch size of
+     * Integer.MIN_VALUE makes MySQL Connector/J stream rows one at a time instead of
+     * buffering the result set; must be consumed inside a transaction and closed.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query("SELECT p FROM Product p ORDER BY p.id")
+    Stream<Product> streamAllBy();
+
+    String SUMMARY_SELECT = "SELECT new com.ecommerce.product.dto.ProductSummary(p.id, p.sku, p.name, p.price,"
+            + " p.stockQuantity, p.category, p.gender, p.thumbnailUrl) FROM Product p";
+
+    @Query(SUMMARY_SELECT)
+    List<ProductSummary> findAllSummaries();
+
+    @Query(SUMMARY_SELECT + " WHERE p.vendorEmail = :vendorEmail")
+    List<ProductSummary> findSummariesByVendorEmail(@Param("vendorEmail") String vendorEmail);
+
+    /**
+     * Fills thumbnailUrl for rows created before the column existed, skipping inline
+     * data URIs which have no short link to point at.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE products SET thumbnail_url = image_url WHERE thumbnail_url IS NULL"
+            + " AND image_url IS NOT NULL AND image_url NOT LIKE 'data:%' AND CHAR_LENGTH(image_url) <= 1024",
+            nativeQuery = true)
+    int backfillThumbnailUrls();
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Product p SET p.imageUrl = :imageUrl, p.thumbnailUrl = :thumbnailUrl, p.imageStatus = :status,"
+            + " p.version = p.version + 1 WHERE p.id = :id")
+    int updateImage(@Param("id") Long id, @Param("imageUrl") String imageUrl,
+            @Param("thumbnailUrl") String thumbnailUrl, @Param("status") ImageStatus status);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Product p SET p.imageStatus = :status, p.version = p.version + 1 WHERE p.id = :id")
+    int updateImageStatus(@Param("id") Long id, @Param("status") ImageStatus status);
+
+    /*
+     * Stock moves are single conditional UPDATEs: the row lock taken by the UPDATE
+     * makes check-and-decrement atomic, so concurrent callers can never oversell and
+     * a caller that loses the race simply sees 0 rows updated.
+     */
+
+    @Modifying(clearAutomatically = true)
+    @Transactional
+    @Query("UPDATE Product p SET p.stockQuantity = p.stockQuantity - :quantity,"
+            + " p.reservedQuantity = p.reservedQuantity + :quantity, p.version = p.version + 1"
+            + " WHERE p.id = :id AND p.stockQuantity >= :quantity")
+    int reserveStock(@Param("id") Long id, @Param("quantity") int quantity);
+
+    @Modifying(clearAutomatically = true)
+    @Transactional
+    @Query("UPDATE Product p SET p.reservedQuantity = p.reservedQuantity - :quantity, p.version = p.version + 1"
+            + " WHERE p.id = :id AND p.reservedQuantity >= :quantity")
+    int commitReservedStock(@Param("id") Long id, @Param("quantity") int quantity);
+
+    @Modifying(clearAutomatically = true)
+    @Transactional
+    @Query("UPDATE Product p SET p.stockQuantity = p.stockQuantity + :quantity,"
+            + " p.reservedQuantity = p.reservedQuantity - :quantity, p.version = p.version + 1"
+            + " WHERE p.id = :id AND p.reservedQuantity >= :quantity")
+    int releaseReservedStock(@Param("id") Long id, @Param("quantity") int quantity);
+
+    @Query("SELECT new com.ecommerce.product.dto.StockLevel(p.id, p.stockQuantity, p.reservedQuantity, p.version,"
+            + " p.vendorEmail)"
+            + " FROM Product p WHERE p.id = :id")
+    Optional<StockLevel> findStockLevel(@Param("id") Long id);
 }
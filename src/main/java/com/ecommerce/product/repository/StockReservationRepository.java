@@ -0,0 +1,32 @@
+package com.ecommerce.product.repository;
+
+import com.ecommerce.product.entity.StockReservation;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public interface StockReservationRepository extends JpaRepository<StockReservation, Long> {
+
+    // Locks the reservation so a concurrent commit and release of the same token cannot both apply
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<StockReservation> findByToken(String token);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM StockReservation r WHERE r.id = :id")
+    Optional<StockReservation> findLockedById(@Param("id") Long id);
+
+    @Query("SELECT r.id FROM StockReservation r WHERE r.createdAt < :cutoff ORDER BY r.createdAt")
+    List<Long> findExpiredIds(@Param("cutoff") LocalDateTime cutoff, Limit limit);
+
+    @Modifying
+    @Query("DELETE FROM StockReservation r WHERE r.id = :id")
+    int deleteReservation(@Param("id") Long id);
+}
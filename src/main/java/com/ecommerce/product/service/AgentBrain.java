@@ -2,19 +2,30 @@ package com.ecommerce.product.service;
 
 import com.ecommerce.product.dto.BargainRequest;
 import com.ecommerce.product.dto.BargainResponse;
+import com.ecommerce.product.dto.BargainTrainingRow;
+import com.ecommerce.product.dto.ModelVersionInfo;
+import com.ecommerce.product.dto.ProductPricing;
+import com.ecommerce.product.dto.TrainingStatus;
 import com.ecommerce.product.entity.BargainHistory;
 import com.ecommerce.product.entity.Product;
 import com.ecommerce.product.repository.BargainHistoryRepository;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.regex.Pattern;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
 @Service
@@ -24,25 +35,71 @@ public class AgentBrain {
 
     private final BargainHistoryRepository historyRepository;
     private final BargainingModel bargainingModel;
+    private final IntentClassifier intentClassifier;
+    private final BargainHistoryWriter historyWriter;
+    private final BargainMetrics metrics;
+
+    private static final int REPLAY_RUN_LENGTH = 100;
+    private static final int REPLAY_MAX_ATTEMPTS = 1000;
+    private static final int MARK_TRAINED_CHUNK = 1000;
+
+    // Off keeps the original replies; on, walk-away and bulk-buy messages get their own instead of the prompt
+    @Value("${bargain.replies.extended-intents:false}")
+    private boolean extendedIntentReplies;
+
+    @Value("${bargain.training.page-size:10000}")
+    private int trainingPageSize;
+
+    @Value("${bargain.training.incremental.enabled:false}")
+    private boolean incrementalEnabled;
+
+    @Value("${bargain.training.incremental.min-new-records:50}")
+    private long incrementalMinNewRecords;
+
+    @Value("${bargain.training.incremental.replay-ratio:0.5}")
+    private double replayRatio;
 
     public BargainResponse processRequest(BargainRequest request, Product product) {
+        return processRequest(request, ProductPricing.builder()
+                .productId(product.getId())
+                .name(product.getName())
+                .price(product.getPrice())
+                .minPrice(product.getMinPrice())
+                .createdAt(product.getCreatedAt())
+                .build());
+    }
+
+    public BargainResponse processRequest(BargainRequest request, ProductPricing product) {
         String msg = request.getMessage() != null ? request.getMessage().toLowerCase() : "";
         BigDecimal proposedPrice = request.getProposedPrice();
 
-        // 1. Intent Detection (Primitive NLP)
-        if (isGreeting(msg)) {
-            return buildResponse(false, null, AgentConstants.getRandom(AgentConstants.GREETINGS));
+        // 1. Intent Detection (single keyword scan)
+        int intents = intentClassifier.classify(msg);
+
+        if (Intent.GREETING.in(intents)) {
+            return buildResponse(intents, false, null,
+                    AgentConstants.getRandom(AgentConstants.GREETINGS));
         }
 
-        if (isCompliment(msg)) {
-            return buildResponse(false, null, AgentConstants.getRandom(AgentConstants.COMPLIMENTS_RESPONSE));
+        if (Intent.COMPLIMENT.in(intents)) {
+            return buildResponse(intents, false, null,
+                    AgentConstants.getRandom(AgentConstants.COMPLIMENTS_RESPONSE));
         }
 
         if (proposedPrice == null || proposedPrice.compareTo(BigDecimal.ZERO) <= 0) {
-            if (isPriceComplaint(msg)) {
-                return buildResponse(false, null, AgentConstants.getRandom(AgentConstants.PRICE_HIGH_RESPONSE));
+            if (Intent.PRICE_COMPLAINT.in(intents)) {
+                return buildResponse(intents, false, null,
+                        AgentConstants.getRandom(AgentConstants.PRICE_HIGH_RESPONSE));
+            }
+            if (extendedIntentReplies && Intent.WALK_AWAY.in(intents)) {
+                return buildResponse(intents, false, null,
+                        AgentConstants.getRandom(AgentConstants.WALK_AWAY_RESPONSE));
+            }
+            if (extendedIntentReplies && Intent.BULK_BUY.in(intents)) {
+                return buildResponse(intents, false, null,
+                        AgentConstants.getRandom(AgentConstants.BULK_BUY_RESPONSE));
             }
-            return buildResponse(false, null,
+            return buildResponse(intents, false, null,
                     "I'm listening! What price are you thinking for this " + product.getName() + "?");
         }
 
@@ -65,7 +122,9 @@ public class AgentBrain {
                 (double) msg.length() / 100.0
         };
 
+        long inferenceStart = System.nanoTime();
         double acceptedProbability = bargainingModel.predict(inputFeatures);
+        metrics.stage(BargainMetrics.Stage.INFERENCE, inferenceStart);
         log.info("Model prediction for acceptance: {}", acceptedProbability);
 
         boolean accepted = acceptedProbability > 0.6; // Threshold for acceptance
@@ -78,23 +137,24 @@ public class AgentBrain {
 
         BargainResponse response;
         if (accepted) {
-            response = buildResponse(true, proposedPrice,
+            response = buildResponse(intents, true, proposedPrice,
                     AgentConstants.getRandom(AgentConstants.ACCEPT_OFFER).replace("{price}", proposedPrice.toString()));
         } else {
             BigDecimal counter = currentPrice.add(proposedPrice).divide(new BigDecimal("2"), 2, RoundingMode.HALF_UP);
             if (proposedPrice.compareTo(minPrice) < 0) {
                 counter = minPrice.add(minPrice.multiply(new BigDecimal("0.05"))).setScale(2, RoundingMode.HALF_UP);
-                response = buildResponse(false, counter, AgentConstants.getRandom(AgentConstants.REJECT_LOW_OFFER)
+                response = buildResponse(intents, false, counter,
+                        AgentConstants.getRandom(AgentConstants.REJECT_LOW_OFFER)
                         .replace("{price}", counter.toString()));
             } else {
-                response = buildResponse(false, counter,
+                response = buildResponse(intents, false, counter,
                         AgentConstants.getRandom(AgentConstants.COUNTER_OFFER).replace("{price}", counter.toString()));
             }
         }
 
-        // 3. Log to History for Training
-        historyRepository.save(BargainHistory.builder()
-                .productId(product.getId())
+        // 3. Log to History for Training (written behind, in batches)
+        historyWriter.record(BargainHistory.builder()
+                .productId(product.getProductId())
                 .userMessage(msg)
                 .agentMessage(response.getResponseMessage())
                 .proposedPrice(proposedPrice)
@@ -108,45 +168,178 @@ public class AgentBrain {
 
     public String trainAgent() {
         log.info("Starting agent training process...");
-        List<BargainHistory> history = historyRepository.findAll();
-        if (history.size() < 5)
+        long records = historyRepository.count();
+        if (records < 5)
             return "Not enough data to train. Need at least 5 records.";
 
-        double[][] inputs = new double[history.size()][5];
-        double[][] labels = new double[history.size()][1];
+        AtomicReference<TrainingSet> loaded = new AtomicReference<>();
+        CompletableFuture<TrainingStatus> run = bargainingModel.train(() -> remember(loaded, loadTrainingSet()));
+        run.thenAccept(finished -> markTrained(finished, loaded.get()));
+        TrainingStatus status = run.getNow(null);
+        if (status != null && status.getState() == TrainingStatus.State.RUNNING) {
+            return "Training already in progress (model v" + status.getTrainingVersion() + ").";
+        }
+        return "Training started in the background with " + records + " records. The current model keeps "
+                + "serving until the new one is ready; check /api/products/bargain/train/status.";
+    }
 
-        for (int i = 0; i < history.size(); i++) {
-            BargainHistory h = history.get(i);
-            inputs[i][0] = h.getProductPrice().doubleValue() / 1000.0;
-            inputs[i][1] = h.getProductMinPrice().doubleValue() / 1000.0;
-            inputs[i][2] = h.getProposedPrice().doubleValue() / 1000.0;
-            inputs[i][3] = 10.0 / 30.0; // Approximation for historical age
-            inputs[i][4] = (double) h.getUserMessage().length() / 100.0;
+    /**
+     * Keeps the model fresh between full retrains: when enough negotiations have
+     * been logged that no published model has trained on, trains on just those rows
+     * plus a replay sample of older history so earlier behaviour is not forgotten.
+     * Rows are picked by their trained flag rather than by id, so a row committed
+     * late (another instance's id block, a write-behind flush, a spool replay) is
+     * still picked up by the next run.
+     */
+    @Scheduled(fixedDelayString = "${bargain.training.incremental.interval-ms:900000}",
+            initialDelayString = "${bargain.training.incremental.interval-ms:900000}")
+    public void refreshModel() {
+        if (!incrementalEnabled) {
+            return;
+        }
+        long fresh = historyRepository.countByTrainedFalse();
+        if (fresh < incrementalMinNewRecords) {
+            log.debug("Skipping incremental training: {} new records", fresh);
+            return;
+        }
+        log.info("Starting incremental training with {} new records", fresh);
+        AtomicReference<TrainingSet> loaded = new AtomicReference<>();
+        bargainingModel.train(TrainingStatus.Mode.INCREMENTAL,
+                watermark -> remember(loaded, loadIncrementalSet(watermark)))
+                .thenAccept(finished -> markTrained(finished, loaded.get()));
+    }
 
-            labels[i][0] = h.isAccepted() ? 1.0 : 0.0;
+    @PostConstruct
+    void classifyLegacyHistory() {
+        try {
+            int classified = historyRepository.classifyLegacyRows(bargainingModel.getWatermark());
+            if (classified > 0) {
+                log.info("Classified {} bargain history rows from before training flags", classified);
+            }
+        } catch (RuntimeException e) {
+            log.error("Could not classify legacy bargain history rows", e);
         }
+    }
+
+    private static TrainingSet remember(AtomicReference<TrainingSet> holder, TrainingSet set) {
+        holder.set(set);
+        return set;
+    }
 
-        bargainingModel.train(inputs, labels);
-        return "Training complete! Agent refined with " + history.size() + " records.";
+    // A failed run leaves its rows unflagged, so the next run offers them again
+    private void markTrained(TrainingStatus finished, TrainingSet set) {
+        if (set == null || (finished.getState() != TrainingStatus.State.SUCCEEDED
+                && finished.getState() != TrainingStatus.State.SKIPPED)) {
+            return;
+        }
+        long[] ids = set.untrainedIds();
+        long version = finished.getTrainingVersion() != null
+                ? finished.getTrainingVersion() : bargainingModel.getVersion();
+        try {
+            for (int from = 0; from < ids.length; from += MARK_TRAINED_CHUNK) {
+                List<Long> chunk = new ArrayList<>(MARK_TRAINED_CHUNK);
+                for (int i = from; i < Math.min(ids.length, from + MARK_TRAINED_CHUNK); i++) {
+                    chunk.add(ids[i]);
+                }
+                historyRepository.markTrained(chunk, version);
+            }
+            if (ids.length > 0) {
+                log.info("Flagged {} bargain history rows as trained", ids.length);
+            }
+        } catch (RuntimeException e) {
+            // Unflagged rows are trained on again next run, which is harmless
+            log.error("Could not flag {} bargain history rows as trained", ids.length, e);
+        }
     }
 
-    private boolean isGreeting(String msg) {
-        return Pattern.compile("\\b(hi|hello|hey|greetings)\\b").matcher(msg).find();
+    /**
+     * Serves a stored model version again and offers the rows that only the
+     * discarded newer versions trained on to the next incremental run.
+     */
+    public ModelVersionInfo rollbackModel(long version) {
+        ModelVersionInfo info = bargainingModel.rollback(version);
+        try {
+            int reopened = historyRepository.unmarkTrainedAfter(version);
+            if (reopened > 0) {
+                log.info("Returned {} bargain history rows to incremental training after rollback to v{}",
+                        reopened, version);
+            }
+        } catch (RuntimeException e) {
+            // The rollback itself stands; those rows are still covered by the next full retrain
+            log.error("Could not reopen bargain history rows trained after v{}", version, e);
+        }
+        return info;
     }
 
-    private boolean isCompliment(String msg) {
-        return Pattern.compile("\\b(good|nice|great|love|amazing|beautiful|cool)\\b").matcher(msg).find();
+    /** Reads history in id-ordered pages so memory holds packed features, not entities. */
+    TrainingSet loadTrainingSet() {
+        TrainingSet set = new TrainingSet();
+        appendRows(set, 0, Integer.MAX_VALUE, historyRepository::findTrainingRows);
+        log.info("Loaded {} training records", set.size());
+        return set;
     }
 
-    private boolean isPriceComplaint(String msg) {
-        return Pattern.compile("\\b(expensive|high|costly|pricey)\\b").matcher(msg).find();
+    TrainingSet loadIncrementalSet(long watermark) {
+        TrainingSet set = new TrainingSet();
+        appendRows(set, 0, Integer.MAX_VALUE, historyRepository::findUntrainedRows);
+        int fresh = set.size();
+        long newWatermark = set.highWatermark();
+
+        // Replay: short id-contiguous runs of trained rows from random points below the watermark
+        int replay = watermark > 0 ? (int) Math.round(fresh * replayRatio) : 0;
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int attempts = 0;
+        while (set.size() - fresh < replay && attempts++ < REPLAY_MAX_ATTEMPTS) {
+            appendRows(set, random.nextLong(watermark), Math.min(REPLAY_RUN_LENGTH, replay - (set.size() - fresh)),
+                    (after, limit) -> historyRepository.findTrainedRowsBetween(after, watermark, limit));
+        }
+        set.advanceWatermark(newWatermark);
+        log.info("Loaded {} new and {} replayed training records", fresh, set.size() - fresh);
+        return set;
+    }
+
+    private interface RowSource {
+        List<BargainTrainingRow> page(long after, Limit limit);
+    }
+
+    private void appendRows(TrainingSet set, long after, int maxRows, RowSource source) {
+        double[] features = new double[5];
+        int loaded = 0;
+        while (loaded < maxRows) {
+            int limit = Math.min(trainingPageSize, maxRows - loaded);
+            List<BargainTrainingRow> page = source.page(after, Limit.of(limit));
+            for (BargainTrainingRow row : page) {
+                loaded++;
+                if (Boolean.FALSE.equals(row.getTrained())) {
+                    set.recordUntrained(row.getId());
+                    set.advanceWatermark(row.getId());
+                }
+                if (row.getProductPrice() == null || row.getProductMinPrice() == null
+                        || row.getProposedPrice() == null) {
+                    continue;
+                }
+                features[0] = row.getProductPrice().doubleValue() / 1000.0;
+                features[1] = row.getProductMinPrice().doubleValue() / 1000.0;
+                features[2] = row.getProposedPrice().doubleValue() / 1000.0;
+                features[3] = 10.0 / 30.0; // Approximation for historical age
+                features[4] = (row.getMessageLength() == null ? 0 : row.getMessageLength()) / 100.0;
+                set.add(features, row.isAccepted() ? 1.0 : 0.0);
+            }
+            if (!page.isEmpty()) {
+                after = page.get(page.size() - 1).getId();
+            }
+            if (page.size() < limit) {
+                break;
+            }
+        }
     }
 
-    private BargainResponse buildResponse(boolean accepted, BigDecimal price, String message) {
+    private BargainResponse buildResponse(int intents, boolean accepted, BigDecimal price, String message) {
         return BargainResponse.builder()
                 .accepted(accepted)
                 .counterOffer(price)
                 .responseMessage(message)
+                .intents(intents)
                 .build();
     }
 }
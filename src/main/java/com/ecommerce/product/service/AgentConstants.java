@@ -21,6 +21,16 @@ public class AgentConstants {
             "I hear you. Value is important. What price feels more reasonable to you?",
             "It is a premium item, but I'm authorized to negotiate. Make me an offer!");
 
+    public static final List<String> WALK_AWAY_RESPONSE = List.of(
+            "Wait, don't go just yet! Tell me what price would work for you and I'll see what I can do.",
+            "I'd hate to lose you over a few rupees. Make me an offer and let's find a middle ground.",
+            "Before you leave, give me a number. I might surprise you!");
+
+    public static final List<String> BULK_BUY_RESPONSE = List.of(
+            "Buying more than one? Now we're talking! Propose a price per item and I'll factor in the volume.",
+            "I love a bulk order. Tell me your price and I'll see how much room I have.",
+            "Larger orders definitely get better treatment. What price per piece did you have in mind?");
+
     public static final List<String> REJECT_LOW_OFFER = List.of(
             "Ouch! That's a bit too low for such a great item. Can you come up a bit?",
             "I'd love to help, but I can't go that low without getting in trouble with my boss! How about a slightly better offer?",
@@ -0,0 +1,180 @@
+package com.ecommerce.product.service;
+
+import com.ecommerce.product.client.BargainServiceClient;
+import com.ecommerce.product.dto.BargainRequest;
+import com.ecommerce.product.dto.BargainResponse;
+import com.ecommerce.product.dto.ProductPricing;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Routes bargaining turns to the configured engine. In {@code local} mode (the
+ * default) the in-process {@link AgentBrain} answers directly, with no network hop.
+ * In {@code remote} mode the gateway calls the bargaining service without holding
+ * the caller's thread. Each
+ * call runs on a virtual thread under a deadline; a semaphore bulkhead caps calls
+ * in flight, and a {@link CircuitBreaker} stops calling a failing service for a
+ * while. Whenever the remote is not used or does not answer in time, the reply
+ * comes from the local {@link AgentBrain} instead, so the shopper always gets one.
+ * Turn metrics (intents, offer ratio, outcome) are recorded here from the reply
+ * that goes out, once per turn, whichever engine produced it.
+ */
+@Service
+@Slf4j
+public class BargainAiGateway {
+
+    public enum Mode {
+        LOCAL, REMOTE
+    }
+
+    private static final String CIRCUIT_NAME = "bargaining-service";
+    private static final List<String> CALL_OUTCOMES = List.of("local", "success", "rejected", "short_circuited",
+            "timeout", "failure");
+
+    private final BargainServiceClient bargainServiceClient;
+    private final AgentBrain agentBrain;
+    private final IntentClassifier intentClassifier;
+    private final BargainMetrics metrics;
+    private final Map<String, Counter> calls = new HashMap<>();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Semaphore bulkhead;
+    private final CircuitBreaker circuitBreaker;
+    private final Duration deadline;
+    private final Timer remoteLatency;
+    private final Mode mode;
+
+    public BargainAiGateway(BargainServiceClient bargainServiceClient, AgentBrain agentBrain,
+            IntentClassifier intentClassifier, BargainMetrics metrics, MeterRegistry registry,
+            @Value("${bargain.engine.mode:local}") String mode,
+            @Value("${bargain.ai.deadline:3s}") Duration deadline,
+            @Value("${bargain.ai.max-concurrent-calls:50}") int maxConcurrentCalls,
+            @Value("${bargain.ai.circuit.window-size:20}") int windowSize,
+            @Value("${bargain.ai.circuit.minimum-calls:10}") int minimumCalls,
+            @Value("${bargain.ai.circuit.failure-rate-threshold:50}") int failureRateThreshold,
+            @Value("${bargain.ai.circuit.open-duration:30s}") Duration openDuration) {
+        this.bargainServiceClient = bargainServiceClient;
+        this.agentBrain = agentBrain;
+        this.intentClassifier = intentClassifier;
+        this.metrics = metrics;
+        this.deadline = deadline;
+        this.mode = Mode.valueOf(mode.trim().toUpperCase());
+        this.bulkhead = new Semaphore(maxConcurrentCalls);
+        this.circuitBreaker = new CircuitBreaker(CIRCUIT_NAME, windowSize, minimumCalls,
+                failureRateThreshold, openDuration);
+        Gauge.builder("circuit.breaker.state", circuitBreaker, breaker -> breaker.getState().ordinal())
+                .description("0 = closed, 1 = open, 2 = half-open")
+                .tag("name", CIRCUIT_NAME)
+                .register(registry);
+        this.remoteLatency = Timer.builder("bargain.ai.remote.latency").register(registry);
+        Gauge.builder("bargain.ai.in.flight", bulkhead, b -> maxConcurrentCalls - b.availablePermits())
+                .register(registry);
+        for (String outcome : CALL_OUTCOMES) {
+            calls.put(outcome, Counter.builder("bargain.ai.calls")
+                    .tag("outcome", outcome)
+                    .tag("source", outcome.equals("success") ? "remote" : "local")
+                    .tag("mode", this.mode.name().toLowerCase())
+                    .register(registry));
+        }
+    }
+
+    public CompletableFuture<BargainResponse> bargain(BargainRequest request, ProductPricing pricing) {
+        if (mode == Mode.LOCAL) {
+            // Model inference only; history is written behind, so this is cheap enough to run inline
+            try {
+                BargainResponse response = agentBrain.processRequest(request, pricing);
+                count("local");
+                return CompletableFuture.completedFuture(answered(request, pricing, response, response.getIntents()));
+            } catch (RuntimeException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+        if (!bulkhead.tryAcquire()) {
+            return fallback(request, pricing, "rejected");
+        }
+        long permit = circuitBreaker.tryAcquire();
+        if (permit == CircuitBreaker.NO_PERMIT) {
+            bulkhead.release();
+            return fallback(request, pricing, "short_circuited");
+        }
+
+        long start = System.nanoTime();
+        CompletableFuture<BargainResponse> call = CompletableFuture.supplyAsync(() -> {
+            try {
+                return bargainServiceClient.bargain(request);
+            } finally {
+                // Released when the call really ends, not at the deadline, so the bulkhead counts stuck calls too
+                bulkhead.release();
+            }
+        }, executor);
+
+        return call.orTimeout(deadline.toMillis(), TimeUnit.MILLISECONDS)
+                .handleAsync((response, error) -> {
+                    if (error == null && response != null) {
+                        remoteLatency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                        circuitBreaker.onSuccess(permit);
+                        count("success");
+                        // The remote engine does not report intents, so only its replies are classified here
+                        return CompletableFuture.completedFuture(answered(request, pricing, response,
+                                intentClassifier.classify(request.getMessage())));
+                    }
+                    circuitBreaker.onFailure(permit);
+                    Throwable cause = error instanceof CompletionException && error.getCause() != null
+                            ? error.getCause() : error;
+                    String outcome = cause instanceof TimeoutException ? "timeout" : "failure";
+                    log.warn("Bargaining service call failed ({}), answering locally: {}", outcome,
+                            cause == null ? "empty response" : cause.getMessage());
+                    return fallback(request, pricing, outcome);
+                }, executor)
+                .thenCompose(future -> future);
+    }
+
+    private CompletableFuture<BargainResponse> fallback(BargainRequest request, ProductPricing pricing,
+            String outcome) {
+        count(outcome);
+        return CompletableFuture.supplyAsync(() -> {
+            BargainResponse response = agentBrain.processRequest(request, pricing);
+            return answered(request, pricing, response, response.getIntents());
+        }, executor);
+    }
+
+    private BargainResponse answered(BargainRequest request, ProductPricing pricing, BargainResponse response,
+            int intents) {
+        metrics.answered(request, pricing, response, intents);
+        return response;
+    }
+
+    private void count(String outcome) {
+        calls.get(outcome).increment();
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public CircuitBreaker.State getCircuitState() {
+        return circuitBreaker.getState();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
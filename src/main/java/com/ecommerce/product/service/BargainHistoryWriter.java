@@ -0,0 +1,262 @@
+package com.ecommerce.product.service;
+
+import com.ecommerce.product.entity.BargainHistory;
+import com.ecommerce.product.repository.BargainHistoryRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Write-behind for negotiation history. Offers go into a lock-free ring and are
+ * inserted with {@code saveAll} in JDBC batches when the ring reaches the batch
+ * size or the flush interval passes, whichever comes first. Records the database
+ * cannot take (insert failure, or a full ring while it is slow) are appended to a
+ * local NDJSON spool and forced to disk; the spool is replayed once writes succeed
+ * again. Everything still buffered is flushed on shutdown.
+ */
+@Service
+@Slf4j
+public class BargainHistoryWriter {
+
+    private final BargainHistoryRepository historyRepository;
+    private final ObjectMapper objectMapper;
+    private final MpscRingBuffer<BargainHistory> buffer;
+    private final ExecutorService flusher = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().name("history-writer").daemon(true).factory());
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final Object spoolLock = new Object(); // Separate from flush() so callers never wait on the database
+    private final Path spoolFile;
+    private final int batchSize;
+    private final Counter written;
+    private final Counter spooled;
+    private final Counter replayed;
+    private final Timer flushTimer;
+
+    public BargainHistoryWriter(BargainHistoryRepository historyRepository, ObjectMapper objectMapper,
+            MeterRegistry registry,
+            @Value("${bargain.history.buffer-capacity:16384}") int bufferCapacity,
+            @Value("${bargain.history.batch-size:200}") int batchSize,
+            @Value("${bargain.history.spool-file:spool/bargain-history.ndjson}") String spoolFile) {
+        this.historyRepository = historyRepository;
+        this.objectMapper = objectMapper;
+        this.buffer = new MpscRingBuffer<>(bufferCapacity);
+        this.batchSize = batchSize;
+        this.spoolFile = Paths.get(spoolFile);
+        this.written = Counter.builder("bargain.history.written").register(registry);
+        this.spooled = Counter.builder("bargain.history.spooled")
+                .description("Records diverted to the local spool file")
+                .register(registry);
+        this.replayed = Counter.builder("bargain.history.replayed").register(registry);
+        this.flushTimer = Timer.builder("bargain.history.flush.time").register(registry);
+        Gauge.builder("bargain.history.buffer.depth", buffer, MpscRingBuffer::size).register(registry);
+    }
+
+    public void record(BargainHistory history) {
+        if (history.getCreatedAt() == null) {
+            history.setCreatedAt(LocalDateTime.now());
+        }
+        if (!buffer.offer(history)) {
+            // The database is not keeping up; keep the record durable rather than block the negotiation
+            spool(List.of(history));
+            return;
+        }
+        if (buffer.size() >= batchSize && flushScheduled.compareAndSet(false, true)) {
+            flusher.execute(() -> {
+                flushScheduled.set(false);
+                flush();
+            });
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${bargain.history.flush-interval-ms:1000}")
+    public synchronized void flush() {
+        List<BargainHistory> pending = new ArrayList<>();
+        buffer.drain(pending::add);
+        boolean healthy = true;
+        for (int from = 0; from < pending.size(); from += batchSize) {
+            List<BargainHistory> batch = pending.subList(from, Math.min(from + batchSize, pending.size()));
+            if (!healthy || !write(batch)) {
+                healthy = false;
+                spool(batch);
+            }
+        }
+        if (healthy && (Files.exists(spoolFile) || Files.exists(replayingFile()))) {
+            replaySpool();
+        }
+    }
+
+    private boolean write(List<BargainHistory> batch) {
+        long start = System.nanoTime();
+        try {
+            historyRepository.saveAll(batch);
+            written.increment(batch.size());
+            return true;
+        } catch (Exception e) {
+            log.warn("Failed to write {} bargain history records, spooling locally: {}", batch.size(),
+                    e.getMessage());
+            return false;
+        } finally {
+            flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void spool(List<BargainHistory> records) {
+        synchronized (spoolLock) {
+            appendToSpool(records);
+        }
+    }
+
+    private void appendToSpool(List<BargainHistory> records) {
+        try {
+            Files.createDirectories(spoolFile.toAbsolutePath().getParent());
+            StringBuilder lines = new StringBuilder();
+            for (BargainHistory history : records) {
+                history.setId(null); // Ids drawn by a failed insert are not reused on replay
+                lines.append(objectMapper.writeValueAsString(history)).append('\n');
+            }
+            try (FileChannel channel = FileChannel.open(spoolFile, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                ByteBuffer bytes = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+                while (bytes.hasRemaining()) {
+                    channel.write(bytes);
+                }
+                channel.force(false);
+            }
+            spooled.increment(records.size());
+        } catch (IOException e) {
+            log.error("Lost {} bargain history records: spool file {} is not writable", records.size(), spoolFile,
+                    e);
+        }
+    }
+
+    /**
+     * Moves the spool aside (so new failures start a fresh file) and inserts it in
+     * batches. A batch that fails again goes back into the new spool; corrupt lines
+     * are skipped. After each batch the number of lines handled is forced to a
+     * progress file, so a replay cut short by a crash resumes after the last handled
+     * batch instead of inserting the whole file again; at most the batch in flight
+     * at the crash is repeated.
+     */
+    private void replaySpool() {
+        Path replaying = replayingFile();
+        Path progress = spoolFile.resolveSibling(spoolFile.getFileName() + ".replayed");
+        try {
+            if (!Files.exists(replaying)) {
+                Files.deleteIfExists(progress); // Left by a replay that finished but crashed before cleaning up
+                synchronized (spoolLock) {
+                    Files.move(spoolFile, replaying, StandardCopyOption.ATOMIC_MOVE);
+                }
+            }
+            long handled = readProgress(progress);
+            List<BargainHistory> batch = new ArrayList<>(batchSize);
+            int count = 0;
+            long lineNumber = 0;
+            try (BufferedReader reader = Files.newBufferedReader(replaying, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (++lineNumber <= handled || line.isBlank()) {
+                        continue;
+                    }
+                    try {
+                        batch.add(objectMapper.readValue(line, BargainHistory.class));
+                    } catch (IOException e) {
+                        log.warn("Skipping unreadable spooled bargain history line: {}", e.getMessage());
+                        continue;
+                    }
+                    if (batch.size() == batchSize) {
+                        count += replayBatch(batch);
+                        writeProgress(progress, lineNumber);
+                        batch = new ArrayList<>(batchSize);
+                    }
+                }
+            }
+            if (!batch.isEmpty()) {
+                count += replayBatch(batch);
+            }
+            Files.delete(replaying);
+            Files.deleteIfExists(progress);
+            if (handled > 0) {
+                log.info("Resumed bargain history spool replay after line {}", handled);
+            }
+            log.info("Replayed {} spooled bargain history records", count);
+        } catch (IOException | UncheckedIOException e) {
+            log.error("Failed to replay bargain history spool {}", spoolFile, e);
+        }
+    }
+
+    private Path replayingFile() {
+        return spoolFile.resolveSibling(spoolFile.getFileName() + ".replaying");
+    }
+
+    private static long readProgress(Path progress) throws IOException {
+        if (!Files.exists(progress)) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(Files.readString(progress, StandardCharsets.US_ASCII).trim());
+        } catch (NumberFormatException e) {
+            log.warn("Ignoring unreadable spool replay progress {}; replaying from the start", progress);
+            return 0;
+        }
+    }
+
+    // Replaced atomically, so a crash leaves either the old count or the new one
+    private static void writeProgress(Path progress, long lines) throws IOException {
+        Path temp = progress.resolveSibling(progress.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer bytes = ByteBuffer.wrap(Long.toString(lines).getBytes(StandardCharsets.US_ASCII));
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+            channel.force(false);
+        }
+        Files.move(temp, progress, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private int replayBatch(List<BargainHistory> batch) {
+        if (write(batch)) {
+            replayed.increment(batch.size());
+            return batch.size();
+        }
+        spool(batch);
+        return 0;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+}
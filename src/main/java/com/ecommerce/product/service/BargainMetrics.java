@@ -0,0 +1,154 @@
+package com.ecommerce.product.service;
+
+import com.ecommerce.product.dto.BargainRequest;
+import com.ecommerce.product.dto.BargainResponse;
+import com.ecommerce.product.dto.ProductPricing;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Meters for a negotiation turn. Every meter is registered up front and tagged
+ * only from fixed enums, so a turn never builds meter ids and the series count
+ * stays bounded no matter how many products, users or sessions are active.
+ */
+@Component
+public class BargainMetrics {
+
+    public enum Stage {
+        SESSION_LOOKUP, HISTORY_LOAD, INFERENCE, AI_CALL, PERSISTENCE, BROADCAST
+    }
+
+    public enum Outcome {
+        ACCEPT, COUNTER, REJECT, NO_OFFER
+    }
+
+    public static final String TURN = "bargain.turn";
+    public static final String STAGE = "bargain.turn.stage";
+    public static final String HISTORY_LENGTH = "bargain.history.length";
+    public static final String OFFER_RATIO = "bargain.offer.price.ratio";
+
+    private final MeterRegistry registry;
+    private final Map<Stage, Timer> stages = new EnumMap<>(Stage.class);
+    private final Map<Outcome, Counter> outcomes = new EnumMap<>(Outcome.class);
+    private final Map<Intent, Counter> intents = new EnumMap<>(Intent.class);
+    private final Counter noIntent;
+    private final Timer turnSucceeded;
+    private final Timer turnFailed;
+    private final DistributionSummary historyLength;
+    private final DistributionSummary offerRatio;
+
+    public BargainMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        for (Stage stage : Stage.values()) {
+            stages.put(stage, Timer.builder(STAGE)
+                    .tag("stage", tag(stage))
+                    .register(registry));
+        }
+        for (Outcome outcome : Outcome.values()) {
+            outcomes.put(outcome, Counter.builder("bargain.outcomes")
+                    .tag("outcome", tag(outcome))
+                    .register(registry));
+        }
+        for (Intent intent : Intent.values()) {
+            intents.put(intent, Counter.builder("bargain.intents")
+                    .tag("intent", tag(intent))
+                    .register(registry));
+        }
+        this.noIntent = Counter.builder("bargain.intents").tag("intent", "none").register(registry);
+        this.turnSucceeded = Timer.builder(TURN).tag("result", "success").register(registry);
+        this.turnFailed = Timer.builder(TURN).tag("result", "failure").register(registry);
+        this.historyLength = DistributionSummary.builder(HISTORY_LENGTH)
+                .baseUnit("messages")
+                .register(registry);
+        // Histogram buckets hold whole numbers, so the ratio is kept in percent
+        this.offerRatio = DistributionSummary.builder(OFFER_RATIO)
+                .description("Proposed price as a percentage of the listed price")
+                .baseUnit("percent")
+                .scale(100)
+                .register(registry);
+    }
+
+    public Timer.Sample start() {
+        return Timer.start(registry);
+    }
+
+    public void stage(Stage stage, long startNanos) {
+        stages.get(stage).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void stage(Stage stage, Timer.Sample sample) {
+        sample.stop(stages.get(stage));
+    }
+
+    public void turn(Timer.Sample sample, boolean succeeded) {
+        sample.stop(succeeded ? turnSucceeded : turnFailed);
+    }
+
+    public void outcome(Outcome outcome) {
+        outcomes.get(outcome).increment();
+    }
+
+    /**
+     * Records what a turn asked for and how it ended, from the request and the reply
+     * alone, so turns answered by the remote engine count the same as local ones.
+     * An offer below the floor that drew a counter is a rejection; a reply with
+     * neither acceptance nor counter (small talk alongside a price) has no outcome.
+     */
+    public void answered(BargainRequest request, ProductPricing pricing, BargainResponse response, int intentMask) {
+        intents(intentMask);
+        if (request.getHistory() != null) {
+            historyLength(request.getHistory().size());
+        }
+        BigDecimal proposed = request.getProposedPrice();
+        if (proposed == null || proposed.signum() <= 0) {
+            outcome(Outcome.NO_OFFER);
+            return;
+        }
+        BigDecimal listed = pricing.getPrice();
+        if (listed != null) {
+            offerRatio(proposed.doubleValue(), listed.doubleValue());
+        }
+        if (response.isAccepted()) {
+            outcome(Outcome.ACCEPT);
+        } else if (response.getCounterOffer() != null && listed != null) {
+            BigDecimal floor = pricing.getMinPrice() != null ? pricing.getMinPrice()
+                    : listed.multiply(new BigDecimal("0.8"));
+            outcome(proposed.compareTo(floor) < 0 ? Outcome.REJECT : Outcome.COUNTER);
+        }
+    }
+
+    /** Counts each intent present in a classifier mask, or {@code none} for an empty one. */
+    public void intents(int mask) {
+        if (mask == 0) {
+            noIntent.increment();
+            return;
+        }
+        for (Intent intent : Intent.values()) {
+            if (intent.in(mask)) {
+                intents.get(intent).increment();
+            }
+        }
+    }
+
+    public void historyLength(int messages) {
+        historyLength.record(messages);
+    }
+
+    public void offerRatio(double proposed, double listed) {
+        if (listed > 0) {
+            offerRatio.record(proposed / listed);
+        }
+    }
+
+    private static String tag(Enum<?> value) {
+        return value.name().toLowerCase();
+    }
+}
@@ -0,0 +1,201 @@
+package com.ecommerce.product.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Admission control for bargaining traffic. Each user has a token bucket, and so
+ * does each (user, product) pair; a message is admitted only if both have a token,
+ * and a rejected message takes a token from neither. Buckets use the generic cell
+ * rate algorithm: a bucket is one "theoretical arrival time" advanced with a CAS,
+ * so checks are lock-free and allocation-free. In {@code redis} mode the same
+ * algorithm runs as a Lua script that checks both buckets before advancing either,
+ * so limits hold across instances; if Redis is unreachable the local buckets take
+ * over.
+ */
+@Service
+@Slf4j
+public class BargainRateLimiter {
+
+    public enum Channel {
+        STOMP, HTTP
+    }
+
+    /** Outcome of a check; {@code retryAfterMillis} is 0 when allowed. */
+    public record Decision(boolean allowed, String scope, long retryAfterMillis) {
+        static final Decision ALLOWED = new Decision(true, null, 0);
+    }
+
+    // KEYS: buckets; ARGV: now ms, then emission interval ms and burst tolerance ms per bucket.
+    // Returns {0, 0} when every bucket had a token, else {1-based index of the full bucket, ms to wait}.
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    private static final RedisScript<List<Long>> GCRA_SCRIPT = new DefaultRedisScript("""
+            local now = tonumber(ARGV[1])
+            local nxts = {}
+            for i, key in ipairs(KEYS) do
+              local interval = tonumber(ARGV[2 * i])
+              local tolerance = tonumber(ARGV[2 * i + 1])
+              local tat = tonumber(redis.call('GET', key) or now)
+              if tat < now then tat = now end
+              local nxt = tat + interval
+              if nxt - now > tolerance + interval then
+                return {i, nxt - now - tolerance - interval}
+              end
+              nxts[i] = nxt
+            end
+            for i, key in ipairs(KEYS) do
+              redis.call('SET', key, nxts[i], 'PX', math.ceil(nxts[i] - now))
+            end
+            return {0, 0}
+            """, List.class);
+
+    private static final String USER_SCOPE = "user";
+    private static final String PRODUCT_SCOPE = "product";
+
+    private final Cache<String, AtomicLong> buckets;
+    private final ObjectProvider<StringRedisTemplate> redisTemplate;
+    private final boolean enabled;
+    private final boolean distributed;
+    private final long userIntervalNanos;
+    private final long userToleranceNanos;
+    private final long productIntervalNanos;
+    private final long productToleranceNanos;
+    private final Counter redisFallbacks;
+    private final Map<Channel, Counter> allowed = new EnumMap<>(Channel.class);
+    private final Map<Channel, Map<String, Counter>> throttled = new EnumMap<>(Channel.class);
+
+    public BargainRateLimiter(ObjectProvider<StringRedisTemplate> redisTemplate, MeterRegistry registry,
+            @Value("${bargain.rate-limit.enabled:true}") boolean enabled,
+            @Value("${bargain.rate-limit.mode:local}") String mode,
+            @Value("${bargain.rate-limit.user.per-minute:30}") int userPerMinute,
+            @Value("${bargain.rate-limit.user.burst:10}") int userBurst,
+            @Value("${bargain.rate-limit.product.per-minute:12}") int productPerMinute,
+            @Value("${bargain.rate-limit.product.burst:5}") int productBurst) {
+        this.redisTemplate = redisTemplate;
+        this.enabled = enabled;
+        this.distributed = "redis".equalsIgnoreCase(mode);
+        this.userIntervalNanos = Duration.ofMinutes(1).toNanos() / Math.max(userPerMinute, 1);
+        this.userToleranceNanos = userIntervalNanos * (Math.max(userBurst, 1) - 1);
+        this.productIntervalNanos = Duration.ofMinutes(1).toNanos() / Math.max(productPerMinute, 1);
+        this.productToleranceNanos = productIntervalNanos * (Math.max(productBurst, 1) - 1);
+        // An idle bucket is full again after one burst's worth of time; dropping it after that is lossless
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(200_000)
+                .expireAfterAccess(Duration.ofNanos(Math.max(userIntervalNanos * Math.max(userBurst, 1),
+                        productIntervalNanos * Math.max(productBurst, 1))).plusMinutes(1))
+                .build();
+        this.redisFallbacks = Counter.builder("bargain.rate.limit.redis.fallbacks").register(registry);
+        for (Channel channel : Channel.values()) {
+            allowed.put(channel, decisions(registry, channel, "allowed", "none"));
+            throttled.put(channel, Map.of(
+                    USER_SCOPE, decisions(registry, channel, "throttled", USER_SCOPE),
+                    PRODUCT_SCOPE, decisions(registry, channel, "throttled", PRODUCT_SCOPE)));
+        }
+    }
+
+    private static Counter decisions(MeterRegistry registry, Channel channel, String outcome, String scope) {
+        return Counter.builder("bargain.rate.limit.decisions")
+                .tag("channel", channel.name().toLowerCase())
+                .tag("outcome", outcome)
+                .tag("scope", scope)
+                .register(registry);
+    }
+
+    /** Checks the user's bucket and, when {@code productId} is given, the user's bucket for that product. */
+    public Decision tryAcquire(Channel channel, String userId, Long productId) {
+        if (!enabled || userId == null) {
+            return Decision.ALLOWED;
+        }
+        Decision decision = productId == null
+                ? acquire(List.of(new Bucket("bargain:rl:u:" + userId, userIntervalNanos, userToleranceNanos,
+                        USER_SCOPE)))
+                : acquire(List.of(
+                        new Bucket("bargain:rl:u:" + userId, userIntervalNanos, userToleranceNanos, USER_SCOPE),
+                        new Bucket("bargain:rl:up:" + userId + ":" + productId, productIntervalNanos,
+                                productToleranceNanos, PRODUCT_SCOPE)));
+        (decision.allowed() ? allowed.get(channel) : throttled.get(channel).get(decision.scope())).increment();
+        return decision;
+    }
+
+    private record Bucket(String key, long intervalNanos, long toleranceNanos, String scope) {
+    }
+
+    private Decision acquire(List<Bucket> requested) {
+        if (distributed) {
+            try {
+                return acquireRedis(requested);
+            } catch (Exception e) {
+                redisFallbacks.increment();
+                log.debug("Redis rate limiter unavailable, using local buckets: {}", e.getMessage());
+            }
+        }
+        for (int i = 0; i < requested.size(); i++) {
+            Bucket bucket = requested.get(i);
+            long waitNanos = acquireLocal(bucket.key(), bucket.intervalNanos(), bucket.toleranceNanos());
+            if (waitNanos > 0) {
+                // Give back the tokens already taken, so a rejected message costs nothing
+                for (int j = 0; j < i; j++) {
+                    releaseLocal(requested.get(j).key(), requested.get(j).intervalNanos());
+                }
+                return new Decision(false, bucket.scope(), Math.max(1, waitNanos / 1_000_000));
+            }
+        }
+        return Decision.ALLOWED;
+    }
+
+    private long acquireLocal(String key, long intervalNanos, long toleranceNanos) {
+        AtomicLong tat = buckets.get(key, k -> new AtomicLong(System.nanoTime()));
+        while (true) {
+            long now = System.nanoTime();
+            long current = tat.get();
+            long next = Math.max(current, now) + intervalNanos;
+            long wait = next - now - toleranceNanos - intervalNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (tat.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    private void releaseLocal(String key, long intervalNanos) {
+        AtomicLong tat = buckets.getIfPresent(key);
+        if (tat != null) {
+            tat.addAndGet(-intervalNanos);
+        }
+    }
+
+    private Decision acquireRedis(List<Bucket> requested) {
+        List<String> keys = new ArrayList<>(requested.size());
+        String[] args = new String[1 + 2 * requested.size()];
+        args[0] = String.valueOf(System.currentTimeMillis());
+        for (int i = 0; i < requested.size(); i++) {
+            Bucket bucket = requested.get(i);
+            keys.add(bucket.key());
+            args[1 + 2 * i] = String.valueOf(bucket.intervalNanos() / 1_000_000);
+            args[2 + 2 * i] = String.valueOf(bucket.toleranceNanos() / 1_000_000);
+        }
+        List<Long> result = redisTemplate.getObject().execute(GCRA_SCRIPT, keys, (Object[]) args);
+        if (result == null || result.size() < 2 || result.get(0) == 0) {
+            return Decision.ALLOWED;
+        }
+        return new Decision(false, requested.get(result.get(0).intValue() - 1).scope(), Math.max(1, result.get(1)));
+    }
+}
@@ -0,0 +1,84 @@
+package com.ecommerce.product.service;
+
+import com.ecommerce.product.dto.BargainReply;
+import com.ecommerce.product.dto.BargainResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Service;
+
+/**
+ * Delivers bargaining replies to the user's own queue ({@code /user/queue/bargain}).
+ * In {@code simple} broker mode the reply goes straight to this instance's broker,
+ * which is all a single node (or a test) needs. In {@code redis} mode it is
+ * published on a Redis channel that every instance subscribes to, and each
+ * instance hands it to its local broker; only the one holding the user's
+ * WebSocket session has anyone to deliver to. The legacy per-user topic can be
+ * switched on for clients that have not moved to the user queue, but anyone may
+ * subscribe to it, so it is off by default.
+ */
+@Service
+@Slf4j
+public class BargainReplySender {
+
+    public static final String USER_DESTINATION = "/queue/bargain";
+    public static final String RELAY_CHANNEL = "bargain:replies";
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final ObjectProvider<StringRedisTemplate> redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final boolean relayOverRedis;
+    private final boolean legacyTopic;
+    private final Counter relayFailures;
+
+    public BargainReplySender(SimpMessagingTemplate messagingTemplate,
+            ObjectProvider<StringRedisTemplate> redisTemplate, ObjectMapper objectMapper, MeterRegistry registry,
+            @Value("${bargain.websocket.broker:simple}") String broker,
+            @Value("${bargain.websocket.legacy-topic:false}") boolean legacyTopic) {
+        this.messagingTemplate = messagingTemplate;
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.relayOverRedis = "redis".equalsIgnoreCase(broker);
+        this.legacyTopic = legacyTopic;
+        this.relayFailures = Counter.builder("bargain.replies.relay.failures").register(registry);
+    }
+
+    public void send(String userId, BargainResponse response) {
+        if (!relayOverRedis) {
+            deliverLocally(userId, response);
+            return;
+        }
+        try {
+            String payload = objectMapper.writeValueAsString(new BargainReply(userId, response));
+            redisTemplate.getObject().convertAndSend(RELAY_CHANNEL, payload);
+        } catch (Exception e) {
+            // Still reaches the user if their session happens to be on this node
+            relayFailures.increment();
+            log.warn("Failed to relay bargain reply for {} over Redis, delivering locally: {}", userId,
+                    e.getMessage());
+            deliverLocally(userId, response);
+        }
+    }
+
+    /** Entry point for replies relayed from any instance, including this one. */
+    public void onRelayedReply(String payload) {
+        try {
+            BargainReply reply = objectMapper.readValue(payload, BargainReply.class);
+            deliverLocally(reply.getUserId(), reply.getResponse());
+        } catch (Exception e) {
+            log.warn("Discarding unreadable relayed bargain reply: {}", e.getMessage());
+        }
+    }
+
+    private void deliverLocally(String userId, BargainResponse response) {
+        messagingTemplate.convertAndSendToUser(userId, USER_DESTINATION, response);
+        if (legacyTopic) {
+            messagingTemplate.convertAndSend("/topic/bargain/" + userId, response);
+        }
+    }
+}
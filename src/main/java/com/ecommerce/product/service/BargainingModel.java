@@ -1,137 +1,311 @@
 package com.ecommerce.product.service;
 
-import org.springframework.stereotype.Component;
+import com.ecommerce.product.dto.ModelVersionInfo;
+import com.ecommerce.product.dto.TrainingStatus;
+import com.ecommerce.product.exception.ResourceNotFoundException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.annotation.PostConstruct;
-import java.io.*;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongFunction;
+import java.util.function.Supplier;
 
+import static com.ecommerce.product.service.ModelSnapshot.HIDDEN_SIZE;
+import static com.ecommerce.product.service.ModelSnapshot.INPUT_SIZE;
+
+/**
+ * Small feed-forward network (5 inputs, 8 sigmoid hidden units, 1 sigmoid output)
+ * that predicts whether an offer gets accepted. The serving weights are an
+ * immutable {@link ModelSnapshot} behind an atomic reference: predictions never
+ * lock and never see a half-trained model. Training runs one at a time on a
+ * background thread against a copy (see {@link MiniBatchTrainer}) and publishes a
+ * new version when it finishes. Versions are persisted by {@link ModelStore}.
+ */
 @Component
-public class BargainingModel implements Serializable {
+@Slf4j
+public class BargainingModel {
+
+    private final AtomicReference<ModelSnapshot> current = new AtomicReference<>();
+    private final AtomicReference<TrainingStatus> status = new AtomicReference<>();
+    private final ExecutorService trainer = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().name("model-trainer").daemon(true).factory());
+    private final MeterRegistry registry;
+    private final ModelStore modelStore;
+    private ForkJoinPool gradientPool;
+
+    @Value("${bargain.training.batch-size:256}")
+    private int batchSize;
+
+    @Value("${bargain.training.max-epochs:200}")
+    private int maxEpochs;
+
+    @Value("${bargain.training.learning-rate:0.5}")
+    private double learningRate;
+
+    @Value("${bargain.training.holdout-fraction:0.1}")
+    private double holdoutFraction;
 
-    private double[][] weights1; // Input to Hidden
-    private double[][] weights2; // Hidden to Output
-    private double[] bias1;
-    private double[] bias2;
+    @Value("${bargain.training.patience:25}")
+    private int patience;
 
-    private static final int INPUT_SIZE = 5;
-    private static final int HIDDEN_SIZE = 8;
-    private static final int OUTPUT_SIZE = 1;
-    private static final double LEARNING_RATE = 0.05;
-    private static final String MODEL_FILE = "bargaining_brain.bin";
+    @Value("${bargain.training.incremental.max-epochs:20}")
+    private int incrementalMaxEpochs;
+
+    @Value("${bargain.training.parallelism:0}")
+    private int parallelism;
+
+    public BargainingModel(MeterRegistry registry, ModelStore modelStore) {
+        this.registry = registry;
+        this.modelStore = modelStore;
+        Gauge.builder("bargain.model.version", current, ref -> ref.get() == null ? 0 : ref.get().version())
+                .description("Version of the bargaining model serving predictions")
+                .register(registry);
+    }
 
     @PostConstruct
     public void init() {
-        if (!loadModel()) {
-            initializeWeights();
-        }
+        gradientPool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        ModelSnapshot loaded = modelStore.loadLatest();
+        current.set(loaded != null ? loaded : initialWeights());
+        status.set(TrainingStatus.builder()
+                .state(TrainingStatus.State.IDLE)
+                .servingVersion(current.get().version())
+                .build());
     }
 
-    private void initializeWeights() {
+    private ModelSnapshot initialWeights() {
         Random rand = new Random();
-        weights1 = new double[INPUT_SIZE][HIDDEN_SIZE];
-        weights2 = new double[HIDDEN_SIZE][OUTPUT_SIZE];
-        bias1 = new double[HIDDEN_SIZE];
-        bias2 = new double[OUTPUT_SIZE];
+        double[] weights1 = new double[HIDDEN_SIZE * INPUT_SIZE];
+        double[] weights2 = new double[HIDDEN_SIZE];
 
+        // Same draw order as the original [input][hidden] layout
         for (int i = 0; i < INPUT_SIZE; i++) {
             for (int j = 0; j < HIDDEN_SIZE; j++) {
-                weights1[i][j] = rand.nextGaussian() * 0.1;
+                weights1[j * INPUT_SIZE + i] = rand.nextGaussian() * 0.1;
             }
         }
         for (int i = 0; i < HIDDEN_SIZE; i++) {
-            weights2[i][0] = rand.nextGaussian() * 0.1;
-            bias1[i] = 0;
+            weights2[i] = rand.nextGaussian() * 0.1;
         }
-        bias2[0] = 0;
+        return new ModelSnapshot(0, 0, Instant.now(), weights1, weights2, new double[HIDDEN_SIZE], 0);
     }
 
     public double predict(double[] input) {
-        double[] hidden = forward(input);
-        return sigmoid(dot(hidden, weights2)[0] + bias2[0]);
+        return current.get().predict(input);
     }
 
-    private double[] forward(double[] input) {
-        double[] hidden = new double[HIDDEN_SIZE];
-        for (int j = 0; j < HIDDEN_SIZE; j++) {
-            double sum = bias1[j];
-            for (int i = 0; i < INPUT_SIZE; i++) {
-                sum += input[i] * weights1[i][j];
-            }
-            hidden[j] = sigmoid(sum);
+    /** Predicts every row of {@code inputs} against one snapshot, so a swap mid-batch cannot mix versions. */
+    public double[] predict(double[][] inputs) {
+        ModelSnapshot snapshot = current.get();
+        double[] results = new double[inputs.length];
+        for (int n = 0; n < inputs.length; n++) {
+            results[n] = snapshot.predict(inputs[n]);
         }
-        return hidden;
+        return results;
     }
 
-    public void train(double[][] inputs, double[][] labels) {
-        for (int epoch = 0; epoch < 1000; epoch++) {
-            for (int i = 0; i < inputs.length; i++) {
-                trainSingle(inputs[i], labels[i][0]);
-            }
-        }
-        saveModel();
+    public long getVersion() {
+        return current.get().version();
     }
 
-    private void trainSingle(double[] input, double label) {
-        // Forward pass
-        double[] hidden = forward(input);
-        double output = predict(input);
+    public long getWatermark() {
+        return current.get().watermark();
+    }
 
-        // Backpropagation
-        double outputError = (label - output) * output * (1 - output);
+    public TrainingStatus getTrainingStatus() {
+        ModelSnapshot snapshot = current.get();
+        return status.get().toBuilder()
+                .servingVersion(snapshot.version())
+                .watermark(snapshot.watermark())
+                .build();
+    }
 
-        // Update Hidden -> Output weights
-        for (int i = 0; i < HIDDEN_SIZE; i++) {
-            weights2[i][0] += LEARNING_RATE * outputError * hidden[i];
+    public CompletableFuture<TrainingStatus> train(double[][] inputs, double[][] labels) {
+        return train(() -> TrainingSet.of(inputs, labels));
+    }
+
+    /**
+     * Starts training in the background and returns immediately; the data is loaded
+     * on the training thread too. When a run is already in progress nothing new is
+     * started and the returned future completes with the running status.
+     */
+    public CompletableFuture<TrainingStatus> train(Supplier<TrainingSet> loader) {
+        return train(TrainingStatus.Mode.FULL, watermark -> loader.get());
+    }
+
+    /**
+     * Like {@link #train(Supplier)}, but the loader is given the serving model's
+     * watermark. In {@link TrainingStatus.Mode#INCREMENTAL} mode training runs for
+     * fewer epochs, and an empty set finishes as SKIPPED without a new version.
+     */
+    public CompletableFuture<TrainingStatus> train(TrainingStatus.Mode mode, LongFunction<TrainingSet> loader) {
+        TrainingStatus previous = status.get();
+        if (previous.getState() == TrainingStatus.State.RUNNING) {
+            return CompletableFuture.completedFuture(previous);
         }
-        bias2[0] += LEARNING_RATE * outputError;
+        ModelSnapshot base = current.get();
+        TrainingStatus running = TrainingStatus.builder()
+                .state(TrainingStatus.State.RUNNING)
+                .mode(mode)
+                .servingVersion(base.version())
+                .trainingVersion(base.version() + 1)
+                .startedAt(Instant.now())
+                .message("Loading training data")
+                .build();
+        if (!status.compareAndSet(previous, running)) {
+            return CompletableFuture.completedFuture(status.get());
+        }
+        return CompletableFuture.supplyAsync(() -> runTraining(base, mode, loader, running), trainer);
+    }
 
-        // Hidden layer error
-        for (int i = 0; i < HIDDEN_SIZE; i++) {
-            double hiddenError = outputError * weights2[i][0] * hidden[i] * (1 - hidden[i]);
-            for (int j = 0; j < INPUT_SIZE; j++) {
-                weights1[j][i] += LEARNING_RATE * hiddenError * input[j];
+    private TrainingStatus runTraining(ModelSnapshot base, TrainingStatus.Mode mode, LongFunction<TrainingSet> loader,
+            TrainingStatus running) {
+        long start = System.nanoTime();
+        TrainingStatus finished;
+        try {
+            TrainingSet data = loader.apply(base.watermark());
+            TrainingStatus loaded = running.toBuilder().samples(data.size()).message("Training").build();
+            status.set(loaded);
+            if (data.size() == 0) {
+                status.set(loaded.toBuilder()
+                        .state(TrainingStatus.State.SKIPPED)
+                        .trainingVersion(null)
+                        .finishedAt(Instant.now())
+                        .message("No new training data since watermark " + base.watermark())
+                        .build());
+                return status.get();
             }
-            bias1[i] += LEARNING_RATE * hiddenError;
+
+            int epochs = mode == TrainingStatus.Mode.INCREMENTAL ? incrementalMaxEpochs : maxEpochs;
+            MiniBatchTrainer.Settings settings = new MiniBatchTrainer.Settings(batchSize, epochs, learningRate,
+                    holdoutFraction, patience, System.nanoTime());
+            MiniBatchTrainer.Result result = new MiniBatchTrainer(gradientPool, settings).train(base.copyWeights(),
+                    data, (epoch, trainLoss, validationLoss) -> status.set(loaded.toBuilder()
+                            .epochs(epoch)
+                            .trainLoss(List.copyOf(trainLoss))
+                            .validationLoss(List.copyOf(validationLoss))
+                            .build()));
+
+            // Versions only move forward, past rollbacks and anything published meanwhile
+            ModelSnapshot trained = result.weights().freeze(nextVersion(running.getTrainingVersion()),
+                    Math.max(base.watermark(), data.highWatermark()));
+            modelStore.save(trained); // Only a persisted model is ever served
+            modelStore.markServing(trained.version());
+            current.set(trained);
+            finished = status.get().toBuilder()
+                    .state(TrainingStatus.State.SUCCEEDED)
+                    .servingVersion(trained.version())
+                    .trainingVersion(trained.version())
+                    .validationSamples(result.validationSize())
+                    .bestEpoch(result.bestEpoch())
+                    .stoppedEarly(result.stoppedEarly())
+                    .message("Trained on " + result.trainSize() + " records")
+                    .build();
+            log.info("Bargaining model v{} published after {} {} epochs on {} records (best epoch {}, watermark {})",
+                    trained.version(), result.trainLoss().size(), mode, data.size(), result.bestEpoch(),
+                    trained.watermark());
+        } catch (IOException | RuntimeException e) {
+            log.error("Bargaining model training failed", e);
+            finished = status.get().toBuilder()
+                    .state(TrainingStatus.State.FAILED)
+                    .servingVersion(current.get().version())
+                    .message(e.getMessage())
+                    .build();
         }
-    }
 
-    private double sigmoid(double x) {
-        return 1.0 / (1.0 + Math.exp(-x));
+        long elapsed = System.nanoTime() - start;
+        Timer.builder("bargain.model.training.duration")
+                .tag("mode", mode.name().toLowerCase())
+                .tag("outcome", finished.getState().name().toLowerCase())
+                .register(registry)
+                .record(Duration.ofNanos(elapsed));
+        finished = finished.toBuilder()
+                .finishedAt(Instant.now())
+                .durationMs(Duration.ofNanos(elapsed).toMillis())
+                .build();
+        status.set(finished);
+        return finished;
     }
 
-    private double[] dot(double[] a, double[][] b) {
-        double[] result = new double[b[0].length];
-        for (int j = 0; j < b[0].length; j++) {
-            for (int i = 0; i < a.length; i++) {
-                result[j] += a[i] * b[i][j];
+    /** Stored model versions, newest first. */
+    public List<ModelVersionInfo> listVersions() {
+        long serving = current.get().version();
+        List<ModelVersionInfo> versions = new ArrayList<>();
+        for (long version : modelStore.versions()) {
+            try {
+                ModelSnapshot snapshot = modelStore.load(version);
+                versions.add(ModelVersionInfo.builder()
+                        .version(version)
+                        .watermark(snapshot.watermark())
+                        .createdAt(snapshot.createdAt())
+                        .sizeBytes(modelStore.sizeOf(version))
+                        .serving(version == serving)
+                        .build());
+            } catch (IOException e) {
+                log.warn("Skipping unreadable model v{}: {}", version, e.getMessage());
             }
         }
-        return result;
+        return versions;
     }
 
-    private void saveModel() {
-        try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(MODEL_FILE))) {
-            oos.writeObject(weights1);
-            oos.writeObject(weights2);
-            oos.writeObject(bias1);
-            oos.writeObject(bias2);
+    /**
+     * Serves a previously stored version again, now and after a restart. The next
+     * training run still produces a version number above every stored one.
+     */
+    public ModelVersionInfo rollback(long version) {
+        if (status.get().getState() == TrainingStatus.State.RUNNING) {
+            throw new IllegalStateException("Cannot roll back while training is running");
+        }
+        ModelSnapshot snapshot;
+        try {
+            snapshot = modelStore.load(version);
+        } catch (NoSuchFileException e) {
+            throw new ResourceNotFoundException("Model version not found: " + version);
+        } catch (IOException e) {
+            throw new IllegalStateException("Model v" + version + " is unreadable: " + e.getMessage(), e);
+        }
+        try {
+            modelStore.markServing(version); // Otherwise a restart would serve the newest file again
         } catch (IOException e) {
-            e.printStackTrace();
+            throw new IllegalStateException("Could not record v" + version + " as the serving model", e);
         }
+        current.set(snapshot);
+        log.info("Rolled bargaining model back to v{}", version);
+        return ModelVersionInfo.builder()
+                .version(version)
+                .watermark(snapshot.watermark())
+                .createdAt(snapshot.createdAt())
+                .sizeBytes(modelStore.sizeOf(version))
+                .serving(true)
+                .build();
     }
 
-    private boolean loadModel() {
-        File file = new File(MODEL_FILE);
-        if (!file.exists())
-            return false;
-        try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(file))) {
-            weights1 = (double[][]) ois.readObject();
-            weights2 = (double[][]) ois.readObject();
-            bias1 = (double[]) ois.readObject();
-            bias2 = (double[]) ois.readObject();
-            return true;
-        } catch (IOException | ClassNotFoundException e) {
-            return false;
-        }
+    private long nextVersion(long candidate) {
+        List<Long> stored = modelStore.versions();
+        long newestStored = stored.isEmpty() ? 0 : stored.get(0);
+        return Math.max(candidate, Math.max(current.get().version(), newestStored) + 1);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        trainer.shutdownNow();
+        gradientPool.shutdownNow();
     }
 }
@@ -0,0 +1,134 @@
+package com.ecommerce.product.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+
+/**
+ * Count-based circuit breaker. While CLOSED it tracks the outcome of the last
+ * {@code windowSize} calls and opens once at least {@code minimumCalls} have been
+ * seen and the failure rate reaches the threshold. OPEN rejects every call until
+ * {@code openDuration} has passed, then HALF_OPEN lets a single trial call through:
+ * its success closes the breaker, its failure opens it again. Every transition
+ * starts a new generation and a permit carries the generation it was granted in,
+ * so a slow call that ends after the breaker has moved on cannot decide the new
+ * state: only outcomes of permits from the current generation count.
+ */
+@Slf4j
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    /** Returned by {@link #tryAcquire()} when the call may not go ahead. */
+    public static final long NO_PERMIT = -1;
+
+    private final String name;
+    private final boolean[] window; // true = failure
+    private final int minimumCalls;
+    private final int failureRateThreshold;
+    private final long openNanos;
+
+    private State state = State.CLOSED;
+    private int recorded;
+    private int failures;
+    private int next;
+    private long openedAt;
+    private boolean trialInFlight;
+    private long generation;
+
+    public CircuitBreaker(String name, int windowSize, int minimumCalls, int failureRateThreshold,
+            Duration openDuration) {
+        this.name = name;
+        this.window = new boolean[windowSize];
+        this.minimumCalls = Math.min(minimumCalls, windowSize);
+        this.failureRateThreshold = failureRateThreshold;
+        this.openNanos = openDuration.toNanos();
+    }
+
+    /**
+     * A permit for one call, or {@link #NO_PERMIT}. A granted permit must end in
+     * exactly one of success, failure or release.
+     */
+    public synchronized long tryAcquire() {
+        if (state == State.OPEN) {
+            if (System.nanoTime() - openedAt < openNanos) {
+                return NO_PERMIT;
+            }
+            transition(State.HALF_OPEN);
+        }
+        if (state == State.HALF_OPEN) {
+            if (trialInFlight) {
+                return NO_PERMIT;
+            }
+            trialInFlight = true;
+        }
+        return generation;
+    }
+
+    /** Returns a permit that was granted but not used for a call. */
+    public synchronized void release(long permit) {
+        if (permit == generation && state == State.HALF_OPEN) {
+            trialInFlight = false;
+        }
+    }
+
+    public synchronized void onSuccess(long permit) {
+        if (permit != generation) {
+            return; // Granted before the last transition; the breaker no longer cares
+        }
+        if (state == State.HALF_OPEN) {
+            transition(State.CLOSED);
+        } else if (state == State.CLOSED) {
+            record(false);
+        }
+    }
+
+    public synchronized void onFailure(long permit) {
+        if (permit != generation) {
+            return;
+        }
+        if (state == State.HALF_OPEN) {
+            transition(State.OPEN);
+        } else if (state == State.CLOSED) {
+            record(true);
+            if (recorded >= minimumCalls && failures * 100 >= failureRateThreshold * recorded) {
+                transition(State.OPEN);
+            }
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    private void record(boolean failure) {
+        if (recorded == window.length) {
+            if (window[next]) {
+                failures--;
+            }
+        } else {
+            recorded++;
+        }
+        window[next] = failure;
+        if (failure) {
+            failures++;
+        }
+        next = (next + 1) % window.length;
+    }
+
+    private void transition(State target) {
+        log.info("Circuit breaker '{}' {} -> {}", name, state, target);
+        state = target;
+        generation++;
+        trialInFlight = false;
+        if (target == State.OPEN) {
+            openedAt = System.nanoTime();
+        } else if (target == State.CLOSED) {
+            recorded = 0;
+            failures = 0;
+            next = 0;
+        }
+    }
+}
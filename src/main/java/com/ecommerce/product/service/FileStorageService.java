@@ -1,59 +1,217 @@
 package com.ecommerce.product.service;
 
+import com.ecommerce.product.dto.ImageStoreStats;
+import com.ecommerce.product.entity.ImageBlob;
+import com.ecommerce.product.repository.ImageBlobRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.Base64;
-import java.util.UUID;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
+/**
+ * Merchant images are stored content-addressed: the file name is the SHA-256 of
+ * the bytes under a two-level sharded directory (blobs/ab/cd/abcd....png), so
+ * re-uploading an image already on disk costs no write. Each blob carries a
+ * reference count of the products using it; unreferenced blobs are deleted by a
+ * scheduled sweep once a grace period has passed.
+ */
 @Service
 @Slf4j
 public class FileStorageService {
 
     private final String UPLOAD_DIR = "uploads";
+    private static final String BLOB_WEB_PREFIX = "/api/products/uploads/blobs/";
+    private static final String VARIANT_WEB_PREFIX = "/api/products/images/";
+    private static final List<String> BLOB_EXTENSIONS = List.of("png", "jpg", "gif", "webp");
+    private static final int COLLECTION_WAIT_ATTEMPTS = 50;
+    private static final long COLLECTION_WAIT_MILLIS = 100;
+    private static final Pattern BLOB_URL = Pattern.compile(
+            "/uploads/blobs/[0-9a-f]{2}/[0-9a-f]{2}/([0-9a-f]{64})\\.[a-z]+$");
+
+    private final ImageBlobRepository imageBlobRepository;
+    private final ZeroCopyFileServer fileServer;
+    private final Counter uploads;
+    private final Counter dedupHits;
+    private final Counter bytesSaved;
+
+    @Value("${product.images.gc-grace-period:24h}")
+    private Duration gcGracePeriod;
 
-    public FileStorageService() {
+    public FileStorageService(ImageBlobRepository imageBlobRepository, ZeroCopyFileServer fileServer,
+            MeterRegistry registry) {
+        this.imageBlobRepository = imageBlobRepository;
+        this.fileServer = fileServer;
+        this.uploads = Counter.builder("product.images.uploads").register(registry);
+        this.dedupHits = Counter.builder("product.images.dedup.hits")
+                .description("Uploads whose bytes were already stored")
+                .register(registry);
+        this.bytesSaved = Counter.builder("product.images.dedup.bytes.saved")
+                .baseUnit("bytes")
+                .register(registry);
         createDirectory(Paths.get(UPLOAD_DIR));
-        createDirectory(Paths.get(UPLOAD_DIR, "merchants"));
+        createDirectory(Paths.get(UPLOAD_DIR, "blobs"));
         createDirectory(Paths.get(UPLOAD_DIR, "customers"));
     }
 
-    public String saveMerchantImage(String vendorEmail, String category, String productName, String base64Image) {
-        try {
-            String cleanEmail = sanitize(vendorEmail);
-            String cleanCategory = sanitize(category);
-            String cleanProductName = sanitize(productName);
-
-            Path targetDir = Paths.get(UPLOAD_DIR, "merchants", cleanEmail, cleanCategory);
-            createDirectory(targetDir);
-
-            byte[] decodedBytes = decodeBase64(base64Image);
-            String fileName = cleanProductName + "_" + UUID.randomUUID().toString().substring(0, 8) + ".png";
-            Path filePath = targetDir.resolve(fileName);
+    public String saveMerchantImage(String base64Image) {
+        try (InputStream in = decodeBase64(base64Image)) {
+            return storeBlob(in);
+        } catch (Exception e) {
+            log.error("Failed to save merchant image", e);
+            throw new RuntimeException("Could not store merchant image", e);
+        }
+    }
 
-            Files.write(filePath, decodedBytes);
-            String webPath = "/api/products/uploads/merchants/" + cleanEmail + "/" + cleanCategory + "/" + fileName;
-            log.info("Saved merchant image to: {}", filePath);
-            return webPath;
+    public String saveMerchantImage(MultipartFile image) {
+        try (InputStream in = image.getInputStream()) {
+            return storeBlob(in);
         } catch (Exception e) {
             log.error("Failed to save merchant image", e);
             throw new RuntimeException("Could not store merchant image", e);
         }
     }
 
-    public String saveCustomerDesign(String customerId, Long productId, String type, String base64Image) {
+    private String storeBlob(InputStream in) throws IOException {
+        Path temp = Files.createTempFile(Paths.get(UPLOAD_DIR, "blobs"), ".upload-", ".tmp");
         try {
+            MessageDigest digest = sha256();
+            long size;
+            try (DigestInputStream digestIn = new DigestInputStream(in, digest)) {
+                size = Files.copy(digestIn, temp, StandardCopyOption.REPLACE_EXISTING);
+            }
+            String hash = HexFormat.of().formatHex(digest.digest());
+            String extension = detectExtension(temp);
+            Path target = blobPath(hash, extension);
+
+            // Registered before the file is checked: once the row is live and inside its grace period the
+            // collector cannot claim it, so a file seen (or written) below stays until the product retains it
+            registerOutsideCollection(hash, extension, size);
+
+            uploads.increment();
+            if (Files.exists(target)) {
+                dedupHits.increment();
+                bytesSaved.increment(size);
+                log.info("Image {} already stored, skipping write", hash);
+            } else {
+                createDirectory(target.getParent());
+                // Same hash means same bytes, so losing a rename race to a concurrent upload is harmless
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+                log.info("Saved merchant image to: {}", target);
+            }
+            return BLOB_WEB_PREFIX + hash.substring(0, 2) + "/" + hash.substring(2, 4) + "/" + hash + "." + extension;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    // Waits out a sweep that has already claimed these bytes, then registers them afresh
+    private void registerOutsideCollection(String hash, String extension, long size) throws IOException {
+        for (int attempt = 0; attempt < COLLECTION_WAIT_ATTEMPTS; attempt++) {
+            imageBlobRepository.register(hash, extension, size);
+            if (!imageBlobRepository.existsByHashAndRefCountLessThan(hash, 0)) {
+                return;
+            }
+            try {
+                Thread.sleep(COLLECTION_WAIT_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted waiting for image " + hash + " to be collected", e);
+            }
+        }
+        throw new IOException("Image " + hash + " is still being garbage-collected");
+    }
+
+    /** Records that a product now points at {@code imageUrl}; links outside the blob store are ignored. */
+    public void retain(String imageUrl) {
+        String hash = blobHash(imageUrl);
+        if (hash != null && imageBlobRepository.retain(hash) == 0) {
+            // Only a link to a blob unused for the whole grace period gets here; uploads register first
+            log.warn("Image {} is no longer stored; product link {} is dangling", hash, imageUrl);
+        }
+    }
+
+    public void release(String imageUrl) {
+        String hash = blobHash(imageUrl);
+        if (hash != null) {
+            imageBlobRepository.release(hash);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${product.images.gc-interval-ms:3600000}")
+    public void collectGarbage() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(gcGracePeriod);
+        List<ImageBlob> orphans = imageBlobRepository.findOrphans(cutoff, Limit.of(1000));
+        int deleted = 0;
+        for (ImageBlob blob : orphans) {
+            if (imageBlobRepository.claimOrphan(blob.getHash(), cutoff) == 0) {
+                continue; // Re-referenced or re-uploaded since the scan
+            }
+            try {
+                Path original = blobPath(blob.getHash(), blob.getExtension());
+                Files.deleteIfExists(original);
+                fileServer.invalidate(original);
+                for (ImageVariant variant : ImageVariant.values()) {
+                    Path variantPath = variantPath(blob.getHash(), variant);
+                    Files.deleteIfExists(variantPath);
+                    fileServer.invalidate(variantPath);
+                }
+                // Row last: until it is gone, uploads of the same bytes wait instead of trusting the file
+                imageBlobRepository.deleteClaimed(blob.getHash());
+                deleted++;
+            } catch (IOException e) {
+                log.warn("Could not delete orphaned image {}: {}", blob.getHash(), e.getMessage());
+            }
+        }
+        if (deleted > 0) {
+            log.info("Garbage-collected {} orphaned images", deleted);
+        }
+    }
+
+    public ImageStoreStats getStats() {
+        long uploadCount = (long) uploads.count();
+        long hits = (long) dedupHits.count();
+        return ImageStoreStats.builder()
+                .blobCount(imageBlobRepository.count())
+                .storedBytes(imageBlobRepository.sumSizeBytes())
+                .orphanedBlobs(imageBlobRepository.countByRefCount(0))
+                .uploads(uploadCount)
+                .dedupHits(hits)
+                .dedupHitRate(uploadCount > 0 ? (double) hits / uploadCount : 0.0)
+                .bytesSaved((long) bytesSaved.count())
+                .build();
+    }
+
+    public String saveCustomerDesign(String customerId, Long productId, String type, String base64Image) {
+        try (InputStream in = decodeBase64(base64Image)) {
             String cleanCustomerId = sanitize(customerId);
             Path targetDir = Paths.get(UPLOAD_DIR, "customers", cleanCustomerId, String.valueOf(productId));
             createDirectory(targetDir);
 
-            byte[] decodedBytes = decodeBase64(base64Image);
             String fileName = type + "_" + System.currentTimeMillis() + ".png";
             Path filePath = targetDir.resolve(fileName);
 
-            Files.write(filePath, decodedBytes);
+            writeAtomically(in, filePath);
             String webPath = "/api/products/uploads/customers/" + cleanCustomerId + "/" + productId + "/" + fileName;
             log.info("Saved customer design ({}) to: {}", type, filePath);
             return webPath;
@@ -63,6 +221,82 @@ public class FileStorageService {
         }
     }
 
+    public Path uploadRoot() {
+        return Paths.get(UPLOAD_DIR).toAbsolutePath().normalize();
+    }
+
+    public Path blobPath(String hash, String extension) {
+        return Paths.get(UPLOAD_DIR, "blobs", hash.substring(0, 2), hash.substring(2, 4), hash + "." + extension);
+    }
+
+    public Path variantPath(String hash, ImageVariant variant) {
+        return Paths.get(UPLOAD_DIR, "blobs", hash.substring(0, 2), hash.substring(2, 4),
+                hash + "_" + variant.pathName() + ".jpg");
+    }
+
+    /** Locates the original file of a blob without a database lookup. */
+    public Path findBlob(String hash) {
+        for (String extension : BLOB_EXTENSIONS) {
+            Path path = blobPath(hash, extension);
+            if (Files.exists(path)) {
+                return path;
+            }
+        }
+        return null;
+    }
+
+    /** Stable URL of a resized variant, or null when the image is not in the blob store. */
+    public String variantUrl(String imageUrl, ImageVariant variant) {
+        String hash = blobHash(imageUrl);
+        return hash != null ? VARIANT_WEB_PREFIX + hash + "/" + variant.pathName() : null;
+    }
+
+    private String blobHash(String imageUrl) {
+        if (imageUrl == null) {
+            return null;
+        }
+        Matcher matcher = BLOB_URL.matcher(imageUrl);
+        return matcher.find() ? matcher.group(1) : null;
+    }
+
+    private String detectExtension(Path file) throws IOException {
+        byte[] header = new byte[12];
+        int read;
+        try (InputStream in = Files.newInputStream(file)) {
+            read = in.readNBytes(header, 0, header.length);
+        }
+        if (read >= 3 && (header[0] & 0xFF) == 0xFF && (header[1] & 0xFF) == 0xD8 && (header[2] & 0xFF) == 0xFF) {
+            return "jpg";
+        }
+        if (read >= 4 && header[0] == 'G' && header[1] == 'I' && header[2] == 'F' && header[3] == '8') {
+            return "gif";
+        }
+        if (read >= 12 && header[0] == 'R' && header[1] == 'I' && header[2] == 'F' && header[3] == 'F'
+                && header[8] == 'W' && header[9] == 'E' && header[10] == 'B' && header[11] == 'P') {
+            return "webp";
+        }
+        return "png";
+    }
+
+    private MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Streams into a temp file first so readers never see a partially written image
+    private void writeAtomically(InputStream in, Path target) throws IOException {
+        Path temp = Files.createTempFile(target.getParent(), ".upload-", ".tmp");
+        try {
+            Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
     private void createDirectory(Path path) {
         try {
             if (!Files.exists(path)) {
@@ -73,14 +307,44 @@ public class FileStorageService {
         }
     }
 
-    private byte[] decodeBase64(String base64Image) {
-        if (base64Image.contains(",")) {
-            base64Image = base64Image.split(",")[1];
-        }
-        return Base64.getDecoder().decode(base64Image);
+    // Decodes on the fly from the data URI text; never materializes the payload or the decoded bytes
+    private InputStream decodeBase64(String base64Image) {
+        int comma = base64Image.indexOf(',');
+        return Base64.getDecoder().wrap(new AsciiInputStream(base64Image, comma + 1));
     }
 
     private String sanitize(String input) {
         return input.replaceAll("[^a-zA-Z0-9.\\-]", "_");
     }
+
+    private static class AsciiInputStream extends InputStream {
+        private final String text;
+        private int position;
+
+        AsciiInputStream(String text, int offset) {
+            this.text = text;
+            this.position = offset;
+        }
+
+        @Override
+        public int read() {
+            return position < text.length() ? text.charAt(position++) & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            int remaining = text.length() - position;
+            if (remaining <= 0) {
+                return -1;
+            }
+            int count = Math.min(length, remaining);
+            for (int i = 0; i < count; i++) {
+                buffer[offset + i] = (byte) text.charAt(position++);
+            }
+            return count;
+        }
+    }
 }
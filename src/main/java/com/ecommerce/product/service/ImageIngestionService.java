@@ -0,0 +1,106 @@
+package com.ecommerce.product.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Runs image writes off the request thread on a bounded worker pool. Work is never
+ * run on the submitting thread: when the queue is full the write is rejected and
+ * reported as failed, rather than decoding a large payload on the request path or
+ * queueing unbounded payloads in memory. Work submitted inside a transaction starts
+ * only after it commits, so the product row exists and is not overwritten by the
+ * commit. The completion callback always runs off the submitting thread, so it is
+ * never inside the committing transaction's {@code afterCommit}.
+ */
+@Service
+@Slf4j
+public class ImageIngestionService {
+
+    private final ThreadPoolExecutor executor;
+    private final ExecutorService rejections = Executors.newVirtualThreadPerTaskExecutor();
+    private final Timer writeTimer;
+    private final Counter failures;
+    private final Counter rejected;
+
+    public ImageIngestionService(MeterRegistry registry,
+            @Value("${product.images.workers:4}") int workers,
+            @Value("${product.images.queue-capacity:100}") int queueCapacity) {
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(workers, workers, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "image-ingest-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.writeTimer = Timer.builder("product.image.ingest.time").register(registry);
+        this.failures = Counter.builder("product.image.ingest.failures").register(registry);
+        this.rejected = Counter.builder("product.image.ingest.rejected").register(registry);
+        Gauge.builder("product.image.ingest.queue.depth", executor, e -> e.getQueue().size()).register(registry);
+    }
+
+    /**
+     * Runs {@code write} on a worker and then {@code onDone} with its result or
+     * failure, on the worker (or, for a rejected write, on a short-lived thread).
+     */
+    public void submit(Supplier<String> write, BiConsumer<String, Throwable> onDone) {
+        Runnable start = () -> {
+            try {
+                executor.execute(() -> {
+                    String result;
+                    try {
+                        result = writeTimer.record(write);
+                    } catch (Throwable e) {
+                        failures.increment();
+                        onDone.accept(null, e);
+                        return;
+                    }
+                    onDone.accept(result, null);
+                });
+            } catch (RejectedExecutionException e) {
+                rejected.increment();
+                log.warn("Image ingestion queue is full ({} pending), rejecting write", executor.getQueue().size());
+                rejections.execute(() -> onDone.accept(null, e));
+            }
+        };
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    start.run();
+                }
+            });
+        } else {
+            start.run();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdown();
+        rejections.shutdown();
+        if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+            log.warn("Image ingestion still had {} pending writes at shutdown", executor.getQueue().size());
+        }
+    }
+}
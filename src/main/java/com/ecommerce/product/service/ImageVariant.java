@@ -0,0 +1,30 @@
+package com.ecommerce.product.service;
+
+public enum ImageVariant {
+    THUMBNAIL(160),
+    CARD(480),
+    FULL(1200);
+
+    private final int maxWidth;
+
+    ImageVariant(int maxWidth) {
+        this.maxWidth = maxWidth;
+    }
+
+    public int getMaxWidth() {
+        return maxWidth;
+    }
+
+    public String pathName() {
+        return name().toLowerCase();
+    }
+
+    public static ImageVariant fromPathName(String name) {
+        for (ImageVariant variant : values()) {
+            if (variant.pathName().equals(name)) {
+                return variant;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,157 @@
+package com.ecommerce.product.service;
+
+import com.ecommerce.product.entity.ImageBlob;
+import com.ecommerce.product.repository.ImageBlobRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Background job that renders the fixed {@link ImageVariant} sizes of every stored
+ * blob as JPEGs next to the original, using only the JDK image APIs. Variants are
+ * immutable once written, so they can be served with far-future caching. Image
+ * dimensions are read from the header before decoding, so an oversized upload is
+ * refused and a large one is subsampled rather than decoded at full resolution.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ImageVariantService {
+
+    private static final float JPEG_QUALITY = 0.82f;
+    private static final int MAX_VARIANT_WIDTH = Arrays.stream(ImageVariant.values())
+            .mapToInt(ImageVariant::getMaxWidth)
+            .max()
+            .orElse(1);
+
+    private final ImageBlobRepository imageBlobRepository;
+    private final FileStorageService fileStorageService;
+
+    @Value("${product.images.max-pixels:50000000}")
+    private long maxPixels;
+
+    @Scheduled(fixedDelayString = "${product.images.variant-interval-ms:10000}")
+    public void generatePending() {
+        List<ImageBlob> pending = imageBlobRepository.findByVariantsReadyFalse(Limit.of(50));
+        for (ImageBlob blob : pending) {
+            try {
+                generate(blob);
+            } catch (Exception e) {
+                log.warn("Could not generate variants for image {}: {}", blob.getHash(), e.getMessage());
+            }
+            // Marked even on failure so an undecodable image is not retried forever; it is served as the original
+            imageBlobRepository.markVariantsReady(blob.getHash());
+        }
+    }
+
+    private void generate(ImageBlob blob) throws IOException {
+        Path original = fileStorageService.blobPath(blob.getHash(), blob.getExtension());
+        if (!Files.exists(original)) {
+            return;
+        }
+        BufferedImage source = decode(original, blob.getHash());
+        if (source == null) {
+            log.info("No JDK decoder for image {} ({}), serving original only", blob.getHash(), blob.getExtension());
+            return;
+        }
+        for (ImageVariant variant : ImageVariant.values()) {
+            writeJpeg(resize(source, variant.getMaxWidth()), fileStorageService.variantPath(blob.getHash(), variant));
+        }
+        log.info("Generated variants for image {}", blob.getHash());
+    }
+
+    // Null when no JDK reader handles the format
+    private BufferedImage decode(Path original, String hash) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(original.toFile())) {
+            Iterator<ImageReader> readers = in != null ? ImageIO.getImageReaders(in) : null;
+            if (readers == null || !readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                // A few KB of compressed PNG can declare gigapixels; check before allocating the raster
+                if ((long) width * height > maxPixels) {
+                    throw new IOException("Image " + hash + " is " + width + "x" + height
+                            + ", over the " + maxPixels + " pixel limit");
+                }
+                ImageReadParam param = reader.getDefaultReadParam();
+                int step = Math.max(1, width / (MAX_VARIANT_WIDTH * 2)); // Keep 2x headroom for the resize passes
+                param.setSourceSubsampling(step, step, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private BufferedImage resize(BufferedImage source, int maxWidth) {
+        int width = Math.min(maxWidth, source.getWidth());
+        int height = Math.max(1, (int) Math.round((double) source.getHeight() * width / source.getWidth()));
+
+        // Halve step by step for large reductions; a single bilinear pass aliases badly
+        BufferedImage current = source;
+        while (current.getWidth() / 2 >= width) {
+            current = draw(current, current.getWidth() / 2, Math.max(1, current.getHeight() / 2));
+        }
+        return draw(current, width, height);
+    }
+
+    private BufferedImage draw(BufferedImage source, int width, int height) {
+        BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = target.createGraphics();
+        try {
+            g.setColor(Color.WHITE); // JPEG has no alpha; flatten transparency onto white
+            g.fillRect(0, 0, width, height);
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            g.dispose();
+        }
+        return target;
+    }
+
+    private void writeJpeg(BufferedImage image, Path target) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        Path temp = Files.createTempFile(target.getParent(), ".variant-", ".tmp");
+        try {
+            try (ImageOutputStream out = ImageIO.createImageOutputStream(temp.toFile())) {
+                ImageWriteParam param = writer.getDefaultWriteParam();
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(JPEG_QUALITY);
+                writer.setOutput(out);
+                writer.write(null, new IIOImage(image, null, null), param);
+            }
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            writer.dispose();
+            Files.deleteIfExists(temp);
+        }
+    }
+}
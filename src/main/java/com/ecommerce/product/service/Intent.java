@@ -0,0 +1,48 @@
+package com.ecommerce.product.service;
+
+import java.util.EnumSet;
+import java.util.List;
+
+/**
+ * What a shopper's message is trying to say. Each intent carries its built-in
+ * keyword table, which {@code bargain.intents.<intent>} in configuration replaces.
+ */
+public enum Intent {
+    GREETING("hi", "hello", "hey", "greetings"),
+    COMPLIMENT("good", "nice", "great", "love", "amazing", "beautiful", "cool"),
+    PRICE_COMPLAINT("expensive", "high", "costly", "pricey"),
+    OFFER("offer", "how about", "would you take", "will you take", "can you do", "i'll pay", "i can pay"),
+    COUNTER("counter", "meet me", "meet in the middle", "split the difference", "best price", "final price"),
+    WALK_AWAY("walk away", "no deal", "forget it", "never mind", "nevermind", "not interested", "somewhere else",
+            "elsewhere"),
+    BULK_BUY("bulk", "wholesale", "in bulk", "dozen", "multiple", "several", "pack of", "quantity");
+
+    private final List<String> defaultKeywords;
+
+    Intent(String... defaultKeywords) {
+        this.defaultKeywords = List.of(defaultKeywords);
+    }
+
+    public List<String> getDefaultKeywords() {
+        return defaultKeywords;
+    }
+
+    public int bit() {
+        return 1 << ordinal();
+    }
+
+    /** Whether this intent is set in a mask returned by {@link IntentClassifier#classify}. */
+    public boolean in(int mask) {
+        return (mask & bit()) != 0;
+    }
+
+    public static EnumSet<Intent> fromMask(int mask) {
+        EnumSet<Intent> intents = EnumSet.noneOf(Intent.class);
+        for (Intent intent : values()) {
+            if (intent.in(mask)) {
+                intents.add(intent);
+            }
+        }
+        return intents;
+    }
+}
@@ -0,0 +1,211 @@
+package com.ecommerce.product.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+
+/**
+ * Detects every {@link Intent} in a message in a single pass. Keywords are compiled
+ * once into an Aho-Corasick automaton over a dense ASCII alphabet; classifying walks
+ * the message one character at a time with no allocation. A keyword only counts
+ * when it stands as whole words, matching the {@code \b...\b} regexes this replaces.
+ * Keyword tables are read from {@code bargain.intents.*} and rebuilt when the
+ * environment is refreshed.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class IntentClassifier {
+
+    private static final String PROPERTY_PREFIX = "bargain.intents";
+    private static final Bindable<Map<String, List<String>>> KEYWORD_TABLES = Bindable.of(
+            ResolvableType.forClassWithGenerics(Map.class, ResolvableType.forClass(String.class),
+                    ResolvableType.forClassWithGenerics(List.class, String.class)));
+
+    private final Environment environment;
+
+    private volatile Automaton automaton;
+
+    @PostConstruct
+    public void init() {
+        reload();
+    }
+
+    @EventListener
+    public void onEnvironmentChange(EnvironmentChangeEvent event) {
+        if (event.getKeys().stream().anyMatch(key -> key.startsWith(PROPERTY_PREFIX))) {
+            reload();
+        }
+    }
+
+    public void reload() {
+        Map<String, List<String>> configured = Binder.get(environment)
+                .bind(PROPERTY_PREFIX, KEYWORD_TABLES)
+                .orElse(Map.of());
+
+        Map<Intent, List<String>> keywords = new EnumMap<>(Intent.class);
+        for (Intent intent : Intent.values()) {
+            keywords.put(intent, intent.getDefaultKeywords());
+        }
+        configured.forEach((key, words) -> {
+            Intent intent = toIntent(key);
+            if (intent == null) {
+                log.warn("Ignoring keywords for unknown intent '{}'", key);
+            } else {
+                keywords.put(intent, words);
+            }
+        });
+
+        this.automaton = new Automaton(keywords);
+        log.info("Intent classifier built with {} states", automaton.outputLengths.length);
+    }
+
+    /** Returns a bitmask of the intents found; test it with {@link Intent#in(int)}. */
+    public int classify(String message) {
+        return message == null ? 0 : automaton.match(message);
+    }
+
+    private static Intent toIntent(String key) {
+        String normalized = key.replace('-', '_').toUpperCase(Locale.ROOT);
+        for (Intent intent : Intent.values()) {
+            if (intent.name().equals(normalized)) {
+                return intent;
+            }
+        }
+        return null;
+    }
+
+    private static boolean isWordChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_';
+    }
+
+    private static final class Automaton {
+
+        private final int[] alphabet = new int[128];
+        // transitions[state * alphabetSize + symbol]; complete, so matching never follows failure links
+        private final int[] transitions;
+        private final int alphabetSize;
+        // Lengths and intent bits of every keyword ending at a state, including those reached via failure links
+        private final int[][] outputLengths;
+        private final int[][] outputMasks;
+
+        Automaton(Map<Intent, List<String>> keywords) {
+            Arrays.fill(alphabet, -1);
+            int symbols = 0;
+            List<Map<Integer, Integer>> trie = new ArrayList<>();
+            List<Map<Integer, Integer>> outputs = new ArrayList<>();
+            trie.add(new HashMap<>());
+            outputs.add(new HashMap<>());
+
+            for (Map.Entry<Intent, List<String>> entry : keywords.entrySet()) {
+                for (String keyword : entry.getValue()) {
+                    String word = keyword.trim().toLowerCase(Locale.ROOT);
+                    if (word.isEmpty() || !word.chars().allMatch(c -> c < 128)) {
+                        continue;
+                    }
+                    int state = 0;
+                    for (int i = 0; i < word.length(); i++) {
+                        char c = word.charAt(i);
+                        if (alphabet[c] < 0) {
+                            alphabet[c] = symbols++;
+                        }
+                        Integer next = trie.get(state).get(alphabet[c]);
+                        if (next == null) {
+                            next = trie.size();
+                            trie.add(new HashMap<>());
+                            outputs.add(new HashMap<>());
+                            trie.get(state).put(alphabet[c], next);
+                        }
+                        state = next;
+                    }
+                    outputs.get(state).merge(word.length(), entry.getKey().bit(), (a, b) -> a | b);
+                }
+            }
+
+            int states = trie.size();
+            this.alphabetSize = Math.max(symbols, 1);
+            this.transitions = new int[states * alphabetSize];
+            int[] failure = new int[states];
+
+            Queue<Integer> queue = new ArrayDeque<>();
+            for (int symbol = 0; symbol < symbols; symbol++) {
+                Integer child = trie.get(0).get(symbol);
+                if (child != null) {
+                    transitions[symbol] = child;
+                    queue.add(child);
+                }
+            }
+            while (!queue.isEmpty()) {
+                int state = queue.poll();
+                outputs.get(failure[state]).forEach((length, mask) -> outputs.get(state).merge(length, mask,
+                        (a, b) -> a | b));
+                for (int symbol = 0; symbol < symbols; symbol++) {
+                    Integer child = trie.get(state).get(symbol);
+                    int fallback = transitions[failure[state] * alphabetSize + symbol];
+                    if (child != null) {
+                        failure[child] = fallback;
+                        transitions[state * alphabetSize + symbol] = child;
+                        queue.add(child);
+                    } else {
+                        transitions[state * alphabetSize + symbol] = fallback;
+                    }
+                }
+            }
+
+            this.outputLengths = new int[states][];
+            this.outputMasks = new int[states][];
+            for (int state = 0; state < states; state++) {
+                Map<Integer, Integer> out = outputs.get(state);
+                outputLengths[state] = new int[out.size()];
+                outputMasks[state] = new int[out.size()];
+                int i = 0;
+                for (Map.Entry<Integer, Integer> entry : out.entrySet()) {
+                    outputLengths[state][i] = entry.getKey();
+                    outputMasks[state][i] = entry.getValue();
+                    i++;
+                }
+            }
+        }
+
+        int match(String text) {
+            int mask = 0;
+            int state = 0;
+            int length = text.length();
+            for (int i = 0; i < length; i++) {
+                char c = Character.toLowerCase(text.charAt(i));
+                int symbol = c < 128 ? alphabet[c] : -1;
+                if (symbol < 0) {
+                    state = 0;
+                    continue;
+                }
+                state = transitions[state * alphabetSize + symbol];
+                int[] lengths = outputLengths[state];
+                for (int k = 0; k < lengths.length; k++) {
+                    int start = i - lengths[k] + 1;
+                    if ((start == 0 || !isWordChar(text.charAt(start - 1)))
+                            && (i + 1 == length || !isWordChar(text.charAt(i + 1)))) {
+                        mask |= outputMasks[state][k];
+                    }
+                }
+            }
+            return mask;
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package com.ecommerce.product.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import static com.ecommerce.product.service.ModelSnapshot.HIDDEN_SIZE;
+import static com.ecommerce.product.service.ModelSnapshot.INPUT_SIZE;
+import static com.ecommerce.product.service.ModelSnapshot.sigmoid;
+
+/**
+ * Mini-batch gradient descent for the bargaining network. Each batch's gradient is
+ * summed across cores by splitting the batch into fork/join leaves; the update is
+ * applied once per batch on the calling thread. A shuffled slice of the data is held
+ * out, and training stops once its loss has not improved for {@code patience}
+ * epochs, returning the best weights seen rather than the last.
+ */
+final class MiniBatchTrainer {
+
+    // Gradient layout: [weights1][weights2][bias1][bias2][summed squared error]
+    private static final int W2 = HIDDEN_SIZE * INPUT_SIZE;
+    private static final int B1 = W2 + HIDDEN_SIZE;
+    private static final int B2 = B1 + HIDDEN_SIZE;
+    private static final int LOSS = B2 + 1;
+    private static final int LEAF_SIZE = 64;
+    private static final int MIN_HOLDOUT_SAMPLES = 20;
+    private static final double MIN_RELATIVE_IMPROVEMENT = 1e-3; // Smaller gains do not reset patience
+
+    record Settings(int batchSize, int maxEpochs, double learningRate, double holdoutFraction, int patience,
+            long seed) {
+    }
+
+    record Result(ModelSnapshot.Weights weights, int trainSize, int validationSize, List<Double> trainLoss,
+            List<Double> validationLoss, int bestEpoch, boolean stoppedEarly) {
+    }
+
+    interface Progress {
+        void epochCompleted(int epoch, List<Double> trainLoss, List<Double> validationLoss);
+    }
+
+    private final ForkJoinPool pool;
+    private final Settings settings;
+
+    MiniBatchTrainer(ForkJoinPool pool, Settings settings) {
+        this.pool = pool;
+        this.settings = settings;
+    }
+
+    Result train(ModelSnapshot.Weights weights, TrainingSet data, Progress progress) {
+        int n = data.size();
+        Random random = new Random(settings.seed());
+        int[] order = new int[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        shuffle(order, 0, n, random);
+
+        int validationSize = n >= MIN_HOLDOUT_SAMPLES ? (int) (n * settings.holdoutFraction()) : 0;
+        int trainSize = n - validationSize;
+        int batchSize = Math.max(1, settings.batchSize());
+
+        List<Double> trainLoss = new ArrayList<>();
+        List<Double> validationLoss = new ArrayList<>();
+        ModelSnapshot.Weights best = weights.copy();
+        double bestLoss = Double.MAX_VALUE;
+        int bestEpoch = 0;
+        boolean stoppedEarly = false;
+
+        for (int epoch = 1; epoch <= settings.maxEpochs(); epoch++) {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new IllegalStateException("Training interrupted");
+            }
+            shuffle(order, validationSize, n, random);
+
+            double epochError = 0;
+            for (int from = validationSize; from < n; from += batchSize) {
+                int to = Math.min(from + batchSize, n);
+                double[] gradient = pool.invoke(new GradientTask(weights, data, order, from, to, true));
+                apply(weights, gradient, settings.learningRate() / (to - from));
+                epochError += gradient[LOSS];
+            }
+            trainLoss.add(epochError / trainSize);
+
+            if (validationSize > 0) {
+                double loss = pool.invoke(new GradientTask(weights, data, order, 0, validationSize, false))[LOSS]
+                        / validationSize;
+                validationLoss.add(loss);
+                if (loss < bestLoss * (1 - MIN_RELATIVE_IMPROVEMENT)) {
+                    bestLoss = loss;
+                    bestEpoch = epoch;
+                    best = weights.copy();
+                } else if (epoch - bestEpoch >= settings.patience()) {
+                    stoppedEarly = true;
+                }
+            }
+            if (progress != null) {
+                progress.epochCompleted(epoch, trainLoss, validationLoss);
+            }
+            if (stoppedEarly) {
+                break;
+            }
+        }
+
+        if (validationSize == 0) {
+            best = weights;
+            bestEpoch = trainLoss.size();
+        }
+        return new Result(best, trainSize, validationSize, trainLoss, validationLoss, bestEpoch, stoppedEarly);
+    }
+
+    private static void apply(ModelSnapshot.Weights w, double[] gradient, double step) {
+        for (int k = 0; k < W2; k++) {
+            w.weights1[k] += step * gradient[k];
+        }
+        for (int j = 0; j < HIDDEN_SIZE; j++) {
+            w.weights2[j] += step * gradient[W2 + j];
+            w.bias1[j] += step * gradient[B1 + j];
+        }
+        w.bias2 += step * gradient[B2];
+    }
+
+    private static void shuffle(int[] order, int from, int to, Random random) {
+        for (int i = to - 1; i > from; i--) {
+            int j = from + random.nextInt(i - from + 1);
+            int tmp = order[i];
+            order[i] = order[j];
+            order[j] = tmp;
+        }
+    }
+
+    /**
+     * Sums the descent direction (same sign convention as per-sample SGD: add it to
+     * the weights) and the squared error over {@code order[from, to)}.
+     */
+    private static final class GradientTask extends RecursiveTask<double[]> {
+
+        private final ModelSnapshot.Weights w;
+        private final TrainingSet data;
+        private final int[] order;
+        private final int from;
+        private final int to;
+        private final boolean withGradient;
+
+        GradientTask(ModelSnapshot.Weights w, TrainingSet data, int[] order, int from, int to,
+                boolean withGradient) {
+            this.w = w;
+            this.data = data;
+            this.order = order;
+            this.from = from;
+            this.to = to;
+            this.withGradient = withGradient;
+        }
+
+        @Override
+        protected double[] compute() {
+            if (to - from > LEAF_SIZE) {
+                int mid = (from + to) >>> 1;
+                GradientTask left = new GradientTask(w, data, order, from, mid, withGradient);
+                left.fork();
+                double[] right = new GradientTask(w, data, order, mid, to, withGradient).compute();
+                double[] sum = left.join();
+                for (int k = 0; k < sum.length; k++) {
+                    sum[k] += right[k];
+                }
+                return sum;
+            }
+
+            double[] gradient = new double[LOSS + 1];
+            double[] hidden = new double[HIDDEN_SIZE];
+            double[] features = data.features();
+            double[] labels = data.labels();
+            for (int n = from; n < to; n++) {
+                int sample = order[n];
+                int offset = sample * INPUT_SIZE;
+
+                double sum = w.bias2;
+                for (int j = 0, row = 0; j < HIDDEN_SIZE; j++, row += INPUT_SIZE) {
+                    double h = w.bias1[j];
+                    for (int i = 0; i < INPUT_SIZE; i++) {
+                        h += features[offset + i] * w.weights1[row + i];
+                    }
+                    hidden[j] = sigmoid(h);
+                    sum += hidden[j] * w.weights2[j];
+                }
+                double output = sigmoid(sum);
+                double error = labels[sample] - output;
+                gradient[LOSS] += error * error;
+                if (!withGradient) {
+                    continue;
+                }
+
+                double outputError = error * output * (1 - output);
+                gradient[B2] += outputError;
+                for (int j = 0, row = 0; j < HIDDEN_SIZE; j++, row += INPUT_SIZE) {
+                    gradient[W2 + j] += outputError * hidden[j];
+                    double hiddenError = outputError * w.weights2[j] * hidden[j] * (1 - hidden[j]);
+                    gradient[B1 + j] += hiddenError;
+                    for (int i = 0; i < INPUT_SIZE; i++) {
+                        gradient[row + i] += hiddenError * features[offset + i];
+                    }
+                }
+            }
+            return gradient;
+        }
+    }
+}
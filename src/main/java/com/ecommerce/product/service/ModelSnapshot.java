@@ -0,0 +1,111 @@
+package com.ecommerce.product.service;
+
+import java.time.Instant;
+
+/**
+ * One immutable version of the bargaining network's weights. Snapshots are never
+ * modified after construction, so predictions can read them without locking while
+ * training builds the next version on a copy.
+ */
+final class ModelSnapshot {
+
+    static final int INPUT_SIZE = 5;
+    static final int HIDDEN_SIZE = 8;
+    static final int OUTPUT_SIZE = 1;
+
+    private final long version;
+    private final long watermark; // Highest BargainHistory id this version has trained on
+    private final Instant createdAt;
+    private final double[] weights1; // Input to Hidden: weights1[hidden * INPUT_SIZE + input]
+    private final double[] weights2; // Hidden to Output: weights2[hidden]
+    private final double[] bias1;
+    private final double bias2;
+
+    /** Takes ownership of the arrays; callers must not modify them afterwards. */
+    ModelSnapshot(long version, long watermark, Instant createdAt, double[] weights1, double[] weights2,
+            double[] bias1, double bias2) {
+        this.version = version;
+        this.watermark = watermark;
+        this.createdAt = createdAt;
+        this.weights1 = weights1;
+        this.weights2 = weights2;
+        this.bias1 = bias1;
+        this.bias2 = bias2;
+    }
+
+    long version() {
+        return version;
+    }
+
+    long watermark() {
+        return watermark;
+    }
+
+    Instant createdAt() {
+        return createdAt;
+    }
+
+    double[] weights1() {
+        return weights1;
+    }
+
+    double[] weights2() {
+        return weights2;
+    }
+
+    double[] bias1() {
+        return bias1;
+    }
+
+    double bias2() {
+        return bias2;
+    }
+
+    double predict(double[] input) {
+        double sum = bias2;
+        for (int j = 0, row = 0; j < HIDDEN_SIZE; j++, row += INPUT_SIZE) {
+            sum += hiddenActivation(input, row, j) * weights2[j];
+        }
+        return sigmoid(sum);
+    }
+
+    private double hiddenActivation(double[] input, int row, int j) {
+        double sum = bias1[j];
+        for (int i = 0; i < INPUT_SIZE; i++) {
+            sum += input[i] * weights1[row + i];
+        }
+        return sigmoid(sum);
+    }
+
+    /** A mutable copy of this snapshot's weights for training to work on. */
+    Weights copyWeights() {
+        return new Weights(weights1.clone(), weights2.clone(), bias1.clone(), bias2);
+    }
+
+    static double sigmoid(double x) {
+        return 1.0 / (1.0 + Math.exp(-x));
+    }
+
+    /** Working weights owned by a single training run. */
+    static final class Weights {
+        final double[] weights1;
+        final double[] weights2;
+        final double[] bias1;
+        double bias2;
+
+        Weights(double[] weights1, double[] weights2, double[] bias1, double bias2) {
+            this.weights1 = weights1;
+            this.weights2 = weights2;
+            this.bias1 = bias1;
+            this.bias2 = bias2;
+        }
+
+        Weights copy() {
+            return new Weights(weights1.clone(), weights2.clone(), bias1.clone(), bias2);
+        }
+
+        ModelSnapshot freeze(long version, long watermark) {
+            return new ModelSnapshot(version, watermark, Instant.now(), weights1, weights2, bias1, bias2);
+        }
+    }
+}
@@ -0,0 +1,323 @@
+package com.ecommerce.product.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import static com.ecommerce.product.service.ModelSnapshot.HIDDEN_SIZE;
+import static com.ecommerce.product.service.ModelSnapshot.INPUT_SIZE;
+import static com.ecommerce.product.service.ModelSnapshot.OUTPUT_SIZE;
+
+/**
+ * Persists bargaining model versions as one file each, in a compact little-endian
+ * format:
+ *
+ * <pre>
+ * int    magic ("BRGM")
+ * short  format version
+ * short  reserved
+ * int    input size, hidden size, output size
+ * long   model version, training watermark, created-at epoch millis
+ * double weights1[hidden * input], weights2[hidden], bias1[hidden], bias2
+ * int    CRC32 of every preceding byte
+ * </pre>
+ *
+ * Files are written to a temporary name, forced to disk, atomically renamed and the
+ * directory synced, so a crash never leaves a partial or lost model behind; reads are memory-mapped and a file
+ * that fails validation is reported and skipped, never silently replaced. The last
+ * {@code bargain.model.retain-versions} versions are kept for rollback. The version
+ * to serve is recorded in a {@code serving-version} pointer file, written the same
+ * way, so a rollback survives a restart instead of the newest file being served
+ * again; the pinned version is never pruned.
+ */
+@Component
+@Slf4j
+public class ModelStore {
+
+    private static final int MAGIC = 0x4D475242; // "BRGM" when read little-endian
+    private static final short FORMAT_VERSION = 1;
+    private static final int PARAMETERS = HIDDEN_SIZE * INPUT_SIZE + HIDDEN_SIZE + HIDDEN_SIZE + OUTPUT_SIZE;
+    private static final int HEADER_BYTES = 4 + 2 + 2 + 3 * 4 + 3 * 8;
+    private static final int FILE_BYTES = HEADER_BYTES + PARAMETERS * 8 + 4;
+    private static final Pattern FILE_NAME = Pattern.compile("bargaining-model-v(\\d+)\\.bin");
+    private static final String LEGACY_FILE = "bargaining_brain.bin";
+    private static final String SERVING_FILE = "serving-version";
+
+    @Value("${bargain.model.dir:models}")
+    private String modelDir;
+
+    @Value("${bargain.model.retain-versions:5}")
+    private int retainVersions;
+
+    public void save(ModelSnapshot snapshot) throws IOException {
+        Path dir = directory();
+        Files.createDirectories(dir);
+
+        ByteBuffer buffer = ByteBuffer.allocate(FILE_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC)
+                .putShort(FORMAT_VERSION)
+                .putShort((short) 0)
+                .putInt(INPUT_SIZE)
+                .putInt(HIDDEN_SIZE)
+                .putInt(OUTPUT_SIZE)
+                .putLong(snapshot.version())
+                .putLong(snapshot.watermark())
+                .putLong(snapshot.createdAt().toEpochMilli());
+        for (double w : snapshot.weights1()) {
+            buffer.putDouble(w);
+        }
+        for (double w : snapshot.weights2()) {
+            buffer.putDouble(w);
+        }
+        for (double b : snapshot.bias1()) {
+            buffer.putDouble(b);
+        }
+        buffer.putDouble(snapshot.bias2());
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, buffer.position());
+        buffer.putInt((int) crc.getValue());
+        buffer.flip();
+
+        writeDurably(dir, fileName(snapshot.version()), buffer);
+        prune();
+    }
+
+    /** Records {@code version} as the one to serve, including after a restart. */
+    public void markServing(long version) throws IOException {
+        Path dir = directory();
+        Files.createDirectories(dir);
+        writeDurably(dir, SERVING_FILE, ByteBuffer.wrap(Long.toString(version).getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    private static void writeDurably(Path dir, String name, ByteBuffer buffer) throws IOException {
+        Path temp = Files.createTempFile(dir, "model-", ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(true);
+            }
+            Files.move(temp, dir.resolve(name), StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+            forceDirectory(dir);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    // The rename lives in the directory entry; without this a crash can lose a model that save() reported written
+    private static void forceDirectory(Path dir) throws IOException {
+        try (FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (AccessDeniedException e) {
+            // Windows cannot open a directory as a channel; NTFS journals the rename itself
+            log.debug("Directory sync not supported for {}", dir);
+        }
+    }
+
+    /** Reads one version; throws if the file is missing or fails validation. */
+    public ModelSnapshot load(long version) throws IOException {
+        return read(directory().resolve(fileName(version)));
+    }
+
+    /**
+     * The version marked as serving or, if none is marked or it is unusable, the
+     * newest version that validates. Corrupt files are logged and skipped; a legacy
+     * serialized model from before this format is migrated on first start. Returns
+     * null only when there is no usable model at all.
+     */
+    public ModelSnapshot loadLatest() {
+        Long serving = servingVersion();
+        if (serving != null) {
+            try {
+                return load(serving);
+            } catch (IOException e) {
+                log.error("Serving bargaining model v{} is unreadable, falling back to the newest version: {}",
+                        serving, e.getMessage());
+            }
+        }
+        for (long version : versions()) {
+            try {
+                return load(version);
+            } catch (IOException e) {
+                log.error("Bargaining model v{} is unreadable, falling back to an older version: {}", version,
+                        e.getMessage());
+            }
+        }
+        return migrateLegacy();
+    }
+
+    /** Stored versions, newest first. */
+    public List<Long> versions() {
+        Path dir = directory();
+        if (!Files.isDirectory(dir)) {
+            return List.of();
+        }
+        List<Long> versions = new ArrayList<>();
+        try (Stream<Path> files = Files.list(dir)) {
+            files.forEach(file -> {
+                Matcher matcher = FILE_NAME.matcher(file.getFileName().toString());
+                if (matcher.matches()) {
+                    versions.add(Long.parseLong(matcher.group(1)));
+                }
+            });
+        } catch (IOException e) {
+            log.error("Failed to list model versions in {}", dir, e);
+        }
+        versions.sort(Comparator.reverseOrder());
+        return versions;
+    }
+
+    private Long servingVersion() {
+        Path file = directory().resolve(SERVING_FILE);
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try {
+            return Long.parseLong(Files.readString(file, StandardCharsets.US_ASCII).trim());
+        } catch (IOException | NumberFormatException e) {
+            log.error("Ignoring unreadable model serving pointer {}: {}", file, e.getMessage());
+            return null;
+        }
+    }
+
+    public long sizeOf(long version) {
+        try {
+            return Files.size(directory().resolve(fileName(version)));
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private ModelSnapshot read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() != FILE_BYTES) {
+                throw new IOException("Unexpected model file size " + channel.size() + ", expected " + FILE_BYTES);
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, FILE_BYTES);
+            ByteBuffer buffer = mapped.order(ByteOrder.LITTLE_ENDIAN);
+
+            CRC32 crc = new CRC32();
+            crc.update(buffer.slice(0, FILE_BYTES - 4));
+            if ((int) crc.getValue() != buffer.getInt(FILE_BYTES - 4)) {
+                throw new IOException("Model file checksum mismatch");
+            }
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("Not a bargaining model file");
+            }
+            short format = buffer.getShort();
+            if (format != FORMAT_VERSION) {
+                throw new IOException("Unsupported model format version " + format);
+            }
+            buffer.getShort();
+            int input = buffer.getInt();
+            int hidden = buffer.getInt();
+            int output = buffer.getInt();
+            if (input != INPUT_SIZE || hidden != HIDDEN_SIZE || output != OUTPUT_SIZE) {
+                throw new IOException("Model shape " + input + "x" + hidden + "x" + output + " does not match "
+                        + INPUT_SIZE + "x" + HIDDEN_SIZE + "x" + OUTPUT_SIZE);
+            }
+            long version = buffer.getLong();
+            long watermark = buffer.getLong();
+            Instant createdAt = Instant.ofEpochMilli(buffer.getLong());
+
+            double[] parameters = new double[PARAMETERS];
+            buffer.asDoubleBuffer().get(parameters);
+            int w2 = HIDDEN_SIZE * INPUT_SIZE;
+            int b1 = w2 + HIDDEN_SIZE;
+            double[] weights1 = Arrays.copyOfRange(parameters, 0, w2);
+            double[] weights2 = Arrays.copyOfRange(parameters, w2, b1);
+            double[] bias1 = Arrays.copyOfRange(parameters, b1, b1 + HIDDEN_SIZE);
+            double bias2 = parameters[b1 + HIDDEN_SIZE];
+            return new ModelSnapshot(version, watermark, createdAt, weights1, weights2, bias1, bias2);
+        }
+    }
+
+    private ModelSnapshot migrateLegacy() {
+        File file = new File(LEGACY_FILE);
+        if (!file.exists()) {
+            return null;
+        }
+        try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(file))) {
+            double[][] w1 = (double[][]) ois.readObject();
+            double[][] w2 = (double[][]) ois.readObject();
+            double[] b1 = (double[]) ois.readObject();
+            double[] b2 = (double[]) ois.readObject();
+            long[] meta = { 1, 0 };
+            try {
+                meta = (long[]) ois.readObject();
+            } catch (EOFException e) {
+                // Written before versions and watermarks were recorded
+            }
+
+            double[] flat1 = new double[HIDDEN_SIZE * INPUT_SIZE];
+            double[] flat2 = new double[HIDDEN_SIZE];
+            for (int j = 0; j < HIDDEN_SIZE; j++) {
+                for (int i = 0; i < INPUT_SIZE; i++) {
+                    flat1[j * INPUT_SIZE + i] = w1[i][j];
+                }
+                flat2[j] = w2[j][0];
+            }
+            ModelSnapshot snapshot = new ModelSnapshot(meta[0], meta[1], Instant.ofEpochMilli(file.lastModified()),
+                    flat1, flat2, b1, b2[0]);
+            save(snapshot);
+            Files.move(file.toPath(), file.toPath().resolveSibling(LEGACY_FILE + ".migrated"),
+                    StandardCopyOption.REPLACE_EXISTING);
+            log.info("Migrated legacy model file {} to v{} in {}", LEGACY_FILE, snapshot.version(), directory());
+            return snapshot;
+        } catch (IOException | ClassNotFoundException | ClassCastException | ArrayIndexOutOfBoundsException e) {
+            log.error("Legacy model file {} is unreadable and was left in place", LEGACY_FILE, e);
+            return null;
+        }
+    }
+
+    private void prune() {
+        List<Long> versions = versions();
+        Long serving = servingVersion();
+        for (int i = Math.max(retainVersions, 1); i < versions.size(); i++) {
+            if (versions.get(i).equals(serving)) {
+                continue; // Rolled back to; still served after a restart
+            }
+            try {
+                Files.deleteIfExists(directory().resolve(fileName(versions.get(i))));
+            } catch (IOException e) {
+                log.warn("Failed to delete old model v{}: {}", versions.get(i), e.getMessage());
+            }
+        }
+    }
+
+    private Path directory() {
+        return Paths.get(modelDir);
+    }
+
+    private static String fileName(long version) {
+        return "bargaining-model-v" + version + ".bin";
+    }
+}
@@ -0,0 +1,55 @@
+package com.ecommerce.product.service;
+
+import com.ecommerce.product.dto.BargainRequest;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * In-memory state of one active negotiation: its persisted session id and a
+ * rolling window of the most recent messages, oldest first.
+ */
+public class NegotiationSession {
+
+    private final Long sessionId;
+    private final Long productId;
+    private final String userId;
+    private final int windowSize;
+    private final Deque<BargainRequest.BargainMessageDTO> window;
+
+    NegotiationSession(Long sessionId, Long productId, String userId, int windowSize,
+            List<BargainRequest.BargainMessageDTO> recent) {
+        this.sessionId = sessionId;
+        this.productId = productId;
+        this.userId = userId;
+        this.windowSize = windowSize;
+        this.window = new ArrayDeque<>(windowSize);
+        recent.forEach(this::append);
+    }
+
+    public Long getSessionId() {
+        return sessionId;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public synchronized void append(BargainRequest.BargainMessageDTO message) {
+        if (window.size() == windowSize) {
+            window.removeFirst();
+        }
+        window.addLast(message);
+    }
+
+    /** A copy of the window, safe to hand to another thread or serialize. */
+    public synchronized List<BargainRequest.BargainMessageDTO> history() {
+        return new ArrayList<>(window);
+    }
+}
@@ -0,0 +1,166 @@
+package com.ecommerce.product.service;
+
+import com.ecommerce.product.dto.BargainRequest;
+import com.ecommerce.product.dto.ProductPricing;
+import com.ecommerce.product.entity.BargainMessage;
+import com.ecommerce.product.entity.BargainSession;
+import com.ecommerce.product.entity.Product;
+import com.ecommerce.product.exception.ResourceNotFoundException;
+import com.ecommerce.product.repository.BargainMessageRepository;
+import com.ecommerce.product.repository.BargainSessionRepository;
+import com.ecommerce.product.repository.ProductRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Serves WebSocket bargaining turns from memory. Active sessions (with a rolling
+ * window of recent messages) expire after a period of inactivity; product pricing
+ * snapshots expire after a short TTL and are dropped as soon as a product-events
+ * message reports a change. Only a cold session touches the database for reads;
+ * each turn's messages are persisted afterwards with a single batched write.
+ */
+@Service
+@Slf4j
+public class NegotiationSessionStore {
+
+    private record SessionKey(Long productId, String userId) {
+    }
+
+    private final BargainSessionRepository sessionRepository;
+    private final BargainMessageRepository messageRepository;
+    private final ProductRepository productRepository;
+    private final Cache<SessionKey, NegotiationSession> sessions;
+    private final Cache<Long, ProductPricing> pricing;
+    private final ThreadPoolExecutor writer;
+    private final int windowSize;
+    private final Counter writeFailures;
+    private final BargainMetrics metrics;
+
+    public NegotiationSessionStore(BargainSessionRepository sessionRepository,
+            BargainMessageRepository messageRepository, ProductRepository productRepository, MeterRegistry registry,
+            BargainMetrics metrics,
+            @Value("${bargain.session.maximum-size:10000}") long maximumSize,
+            @Value("${bargain.session.idle-timeout:30m}") Duration idleTimeout,
+            @Value("${bargain.session.history-window:20}") int windowSize,
+            @Value("${bargain.session.pricing-ttl:5m}") Duration pricingTtl,
+            @Value("${bargain.session.write-queue-capacity:10000}") int writeQueueCapacity) {
+        this.sessionRepository = sessionRepository;
+        this.messageRepository = messageRepository;
+        this.productRepository = productRepository;
+        this.windowSize = windowSize;
+        this.metrics = metrics;
+        this.sessions = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterAccess(idleTimeout)
+                .recordStats()
+                .build();
+        this.pricing = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(pricingTtl)
+                .recordStats()
+                .build();
+        // One writer keeps each session's messages in order; a full queue makes the turn write its own messages
+        this.writer = new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(writeQueueCapacity),
+                Thread.ofPlatform().name("bargain-message-writer").daemon(true).factory(),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        CaffeineCacheMetrics.monitor(registry, sessions, "negotiationSessions");
+        CaffeineCacheMetrics.monitor(registry, pricing, "productPricing");
+        Gauge.builder("bargain.messages.write.queue.depth", writer, e -> e.getQueue().size()).register(registry);
+        this.writeFailures = Counter.builder("bargain.messages.write.failures").register(registry);
+    }
+
+    /** The active session for this user and product, loading or creating it on a miss. */
+    public NegotiationSession session(Long productId, String userId) {
+        return sessions.get(new SessionKey(productId, userId), key -> {
+            BargainSession session = sessionRepository.findByProductIdAndUserIdAndActiveTrue(productId, userId)
+                    .orElseGet(() -> sessionRepository.save(BargainSession.builder()
+                            .productId(productId)
+                            .userId(userId)
+                            .build()));
+            long historyStart = System.nanoTime();
+            List<BargainRequest.BargainMessageDTO> recent = messageRepository
+                    .findBySessionIdOrderByTimestampDesc(session.getId(), Limit.of(windowSize))
+                    .stream()
+                    .map(NegotiationSessionStore::toDto)
+                    .collect(Collectors.toList());
+            Collections.reverse(recent);
+            metrics.stage(BargainMetrics.Stage.HISTORY_LOAD, historyStart);
+            return new NegotiationSession(session.getId(), productId, userId, windowSize, recent);
+        });
+    }
+
+    public ProductPricing pricing(Long productId) {
+        return pricing.get(productId, id -> {
+            Product product = productRepository.findById(id)
+                    .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + id));
+            return ProductPricing.builder()
+                    .productId(product.getId())
+                    .name(product.getName())
+                    .price(product.getPrice())
+                    .minPrice(product.getMinPrice())
+                    .createdAt(product.getCreatedAt())
+                    .build();
+        });
+    }
+
+    public void invalidatePricing(Long productId) {
+        if (productId == null) {
+            pricing.invalidateAll();
+        } else {
+            pricing.invalidate(productId);
+        }
+    }
+
+    /** Queues the turn's messages for one {@code saveAll}, off the caller's thread. */
+    public void persistAsync(List<BargainMessage> messages) {
+        writer.execute(() -> {
+            long start = System.nanoTime();
+            try {
+                messageRepository.saveAll(messages);
+                metrics.stage(BargainMetrics.Stage.PERSISTENCE, start);
+            } catch (Exception e) {
+                writeFailures.increment();
+                log.error("Failed to persist {} bargain messages for session {}", messages.size(),
+                        messages.get(0).getSessionId(), e);
+            }
+        });
+    }
+
+    private static BargainRequest.BargainMessageDTO toDto(BargainMessage message) {
+        return BargainRequest.BargainMessageDTO.builder()
+                .sender(message.getSender())
+                .message(message.getMessage())
+                .proposedPrice(message.getProposedPrice())
+                .build();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(10, TimeUnit.SECONDS)) {
+                log.warn("Bargain message writer did not drain within 10s");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
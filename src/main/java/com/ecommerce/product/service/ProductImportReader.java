@@ -0,0 +1,223 @@
+package com.ecommerce.product.service;
+
+import com.ecommerce.product.dto.ProductRequest;
+import com.ecommerce.product.entity.CategoryType;
+import com.ecommerce.product.entity.Gender;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Turns a bulk upload body into a lazy sequence of rows, so an import never holds
+ * more than one batch of parsed products in memory. Supports a JSON array,
+ * newline-delimited JSON and CSV with a header line naming {@link ProductRequest}
+ * fields. A malformed record becomes an error row instead of aborting the upload.
+ */
+@Component
+@RequiredArgsConstructor
+public class ProductImportReader {
+
+    public static final String NDJSON = "application/x-ndjson";
+    public static final String CSV = "text/csv";
+
+    private final ObjectMapper objectMapper;
+
+    public record Row(int number, ProductRequest request, String error) {
+
+        // A JSON null (array element or NDJSON line) parses fine but carries no product
+        static Row of(int number, ProductRequest request) {
+            return request != null ? new Row(number, request, null) : new Row(number, null, "Empty record");
+        }
+    }
+
+    public Iterator<Row> read(InputStream body, MediaType contentType) throws IOException {
+        if (contentType != null && contentType.isCompatibleWith(MediaType.parseMediaType(CSV))) {
+            return new CsvRows(reader(body));
+        }
+        if (contentType != null && contentType.isCompatibleWith(MediaType.parseMediaType(NDJSON))) {
+            return new NdjsonRows(reader(body));
+        }
+        return new JsonArrayRows(objectMapper.readerFor(ProductRequest.class).readValues(body));
+    }
+
+    private BufferedReader reader(InputStream body) {
+        return new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+    }
+
+    private abstract static class LineRows implements Iterator<Row> {
+        private final BufferedReader reader;
+        private String nextLine;
+        protected int number;
+
+        LineRows(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public boolean hasNext() {
+            try {
+                while (nextLine == null) {
+                    String line = reader.readLine();
+                    if (line == null) {
+                        return false;
+                    }
+                    if (!line.isBlank()) {
+                        nextLine = line;
+                    }
+                }
+                return true;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public Row next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            String line = nextLine;
+            nextLine = null;
+            number++;
+            try {
+                return Row.of(number, parse(line));
+            } catch (Exception e) {
+                return new Row(number, null, "Malformed record: " + e.getMessage());
+            }
+        }
+
+        protected abstract ProductRequest parse(String line) throws Exception;
+    }
+
+    private class NdjsonRows extends LineRows {
+        NdjsonRows(BufferedReader reader) {
+            super(reader);
+        }
+
+        @Override
+        protected ProductRequest parse(String line) throws Exception {
+            return objectMapper.readValue(line, ProductRequest.class);
+        }
+    }
+
+    private static class CsvRows extends LineRows {
+        private final List<String> header;
+
+        CsvRows(BufferedReader reader) throws IOException {
+            super(reader);
+            String headerLine = reader.readLine();
+            this.header = headerLine != null ? splitCsv(headerLine) : List.of();
+        }
+
+        @Override
+        protected ProductRequest parse(String line) {
+            List<String> values = splitCsv(line);
+            Map<String, String> fields = new HashMap<>();
+            for (int i = 0; i < header.size() && i < values.size(); i++) {
+                String value = values.get(i).trim();
+                if (!value.isEmpty()) {
+                    fields.put(header.get(i).trim(), value);
+                }
+            }
+            return ProductRequest.builder()
+                    .sku(fields.get("sku"))
+                    .name(fields.get("name"))
+                    .description(fields.get("description"))
+                    .price(decimal(fields.get("price")))
+                    .stockQuantity(fields.containsKey("stockQuantity") ? Integer.valueOf(fields.get("stockQuantity")) : null)
+                    .category(fields.containsKey("category") ? CategoryType.valueOf(fields.get("category").toUpperCase()) : null)
+                    .gender(fields.containsKey("gender") ? Gender.valueOf(fields.get("gender").toUpperCase()) : null)
+                    .imageUrl(fields.get("imageUrl"))
+                    .minPrice(decimal(fields.get("minPrice")))
+                    .build();
+        }
+
+        private static BigDecimal decimal(String value) {
+            return value != null ? new BigDecimal(value) : null;
+        }
+
+        // RFC 4180 quoting within a single line; embedded line breaks are not supported
+        private static List<String> splitCsv(String line) {
+            List<String> values = new ArrayList<>();
+            StringBuilder current = new StringBuilder();
+            boolean quoted = false;
+            for (int i = 0; i < line.length(); i++) {
+                char c = line.charAt(i);
+                if (quoted) {
+                    if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        current.append('"');
+                        i++;
+                    } else if (c == '"') {
+                        quoted = false;
+                    } else {
+                        current.append(c);
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    values.add(current.toString());
+                    current.setLength(0);
+                } else {
+                    current.append(c);
+                }
+            }
+            values.add(current.toString());
+            return values;
+        }
+    }
+
+    private static class JsonArrayRows implements Iterator<Row> {
+        private final MappingIterator<ProductRequest> values;
+        private int number;
+        private boolean failed;
+
+        JsonArrayRows(MappingIterator<ProductRequest> values) {
+            this.values = values;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (failed) {
+                return false;
+            }
+            try {
+                return values.hasNextValue();
+            } catch (IOException e) {
+                // Syntax errors leave the parser unusable; report once and stop
+                failed = true;
+                number++;
+                return true;
+            }
+        }
+
+        @Override
+        public Row next() {
+            if (failed) {
+                return new Row(number, null, "Malformed JSON, import stopped at this record");
+            }
+            number++;
+            try {
+                return Row.of(number, values.nextValue());
+            } catch (IOException e) {
+                failed = true;
+                return new Row(number, null, "Malformed record: " + e.getMessage());
+            }
+        }
+    }
+}
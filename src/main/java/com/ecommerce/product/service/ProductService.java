@@ -1,22 +1,57 @@
 package com.ecommerce.product.service;
 
+import com.ecommerce.product.cache.CacheNames;
 import com.ecommerce.product.dto.*;
+import com.ecommerce.product.entity.CategoryType;
+import com.ecommerce.product.entity.Gender;
+import com.ecommerce.product.entity.ImageStatus;
 import com.ecommerce.product.entity.Product;
 import com.ecommerce.product.repository.ProductRepository;
 import com.ecommerce.product.exception.ResourceNotFoundException;
 import com.ecommerce.product.exception.UnauthorizedException;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.data.domain.Limit;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.concurrent.CompletableFuture;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -25,28 +60,42 @@ public class ProductService {
     private final ProductRepository productRepository;
     private final KafkaTemplate<String, Object> kafkaTemplate;
     private final FileStorageService fileStorageService;
+    private final CacheManager cacheManager;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private final ImageIngestionService imageIngestionService;
+    private final StockReservationService stockReservationService;
 
-    @CacheEvict(value = "products", allEntries = true)
+    private static final int MAX_PAGE_SIZE = 100;
+
+    // Latest inline upload per product; a slower, superseded write must not overwrite a newer image
+    private final Map<Long, Long> pendingImages = new ConcurrentHashMap<>();
+    private final AtomicLong imageTickets = new AtomicLong();
+
+    @Value("${product.import.batch-size:500}")
+    private int importBatchSize;
+
+    @Caching(evict = {
+            @CacheEvict(value = CacheNames.VENDOR_PRODUCTS, key = "#productRequest.vendorEmail",
+                    condition = "#productRequest.vendorEmail != null"),
+            @CacheEvict(value = { CacheNames.PRODUCT_LIST, CacheNames.PRODUCT_PAGES }, allEntries = true)
+    })
     public ProductResponse createProduct(ProductRequest productRequest) {
         log.info("Creating product: {}", productRequest.getName());
 
-        String savedImageUrl = processImage(productRequest.getVendorEmail(),
-                productRequest.getCategory().name(),
-                productRequest.getName(),
-                productRequest.getImageUrl());
-
         Product product = Product.builder()
                 .sku(productRequest.getSku())
                 .name(productRequest.getName())
                 .description(productRequest.getDescription())
                 .price(productRequest.getPrice())
                 .stockQuantity(productRequest.getStockQuantity())
-                .imageUrl(savedImageUrl)
                 .minPrice(productRequest.getMinPrice())
                 .vendorEmail(productRequest.getVendorEmail())
                 .category(productRequest.getCategory())
                 .gender(productRequest.getGender())
                 .build();
+        applyImage(product, productRequest.getImageUrl());
 
         log.info("Saving product to database: {}", product.getName());
         Product savedProduct = productRepository.save(product);
@@ -54,35 +103,435 @@ public class ProductService {
         // Emit Event
         sendProductEvent(savedProduct, "CREATE");
 
+        if (isInlineImage(productRequest.getImageUrl())) {
+            ingestImage(savedProduct, productRequest.getImageUrl());
+        } else {
+            fileStorageService.retain(savedProduct.getImageUrl());
+        }
+
         return mapToProductResponse(savedProduct);
     }
 
-    private String processImage(String vendorEmail, String category, String productName, String imageUrl) {
-        if (imageUrl != null && imageUrl.startsWith("data:image")) {
-            return fileStorageService.saveMerchantImage(vendorEmail, category, productName, imageUrl);
+    /**
+     * Upserts products by SKU for one vendor. Rows are processed in batches: each
+     * batch is one lookup query, one JDBC-batched transaction, one round of events
+     * and one cache invalidation. Bad rows are reported without failing the rest.
+     */
+    public BulkImportResponse importProducts(Iterator<ProductImportReader.Row> rows, String vendorEmail) {
+        log.info("Bulk importing products for vendor: {}", vendorEmail);
+        BulkImportResponse result = new BulkImportResponse();
+        List<ProductImportReader.Row> batch = new ArrayList<>(importBatchSize);
+        while (rows.hasNext()) {
+            batch.add(rows.next());
+            if (batch.size() >= importBatchSize) {
+                importBatch(batch, vendorEmail, result);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            importBatch(batch, vendorEmail, result);
+        }
+        log.info("Bulk import for {} finished: {} created, {} updated, {} failed", vendorEmail,
+                result.getCreated(), result.getUpdated(), result.getFailed());
+        return result;
+    }
+
+    private record PendingImport(ProductImportReader.Row row, Product product, boolean created,
+            String previousImageUrl) {
+        String inlineImage() {
+            return isInlineImage(row.request().getImageUrl()) ? row.request().getImageUrl() : null;
+        }
+
+        PendingImport withProduct(Product saved) {
+            return new PendingImport(row, saved, created, previousImageUrl);
+        }
+    }
+
+    private void importBatch(List<ProductImportReader.Row> batch, String vendorEmail, BulkImportResponse result) {
+        result.setTotal(result.getTotal() + batch.size());
+
+        Map<String, ProductImportReader.Row> valid = new LinkedHashMap<>();
+        for (ProductImportReader.Row row : batch) {
+            String error = row.error() != null ? row.error() : validateImportRow(row.request());
+            if (error == null && valid.containsKey(row.request().getSku())) {
+                error = "Duplicate SKU within the same batch";
+            }
+            if (error != null) {
+                rejectRow(result, row, error);
+            } else {
+                valid.put(row.request().getSku(), row);
+            }
+        }
+        if (valid.isEmpty()) {
+            return;
+        }
+
+        Map<String, Product> existing = productRepository.findBySkuIn(valid.keySet())
+                .stream()
+                .collect(Collectors.toMap(Product::getSku, Function.identity()));
+
+        List<PendingImport> pending = new ArrayList<>();
+        for (ProductImportReader.Row row : valid.values()) {
+            Product current = existing.get(row.request().getSku());
+            if (current != null && !Objects.equals(current.getVendorEmail(), vendorEmail)) {
+                rejectRow(result, row, "SKU belongs to another vendor");
+                continue;
+            }
+            String previousImageUrl = current != null ? current.getImageUrl() : null;
+            try {
+                pending.add(new PendingImport(row, applyImportRow(current, row.request(), vendorEmail),
+                        current == null, previousImageUrl));
+            } catch (RuntimeException e) {
+                rejectRow(result, row, e.getMessage());
+            }
+        }
+
+        List<PendingImport> saved = saveImportBatch(pending, vendorEmail, result);
+        entityManager.clear(); // Keep the request-scoped persistence context from growing across batches
+
+        Cache productCache = cacheManager.getCache(CacheNames.PRODUCT);
+        for (PendingImport item : saved) {
+            if (item.created()) {
+                result.setCreated(result.getCreated() + 1);
+            } else {
+                result.setUpdated(result.getUpdated() + 1);
+                if (productCache != null) {
+                    productCache.evict(item.product().getId());
+                }
+            }
+            if (item.inlineImage() != null) {
+                ingestImage(item.product(), item.inlineImage());
+            } else {
+                swapImageReference(item.previousImageUrl(), item.product().getImageUrl());
+            }
+        }
+        if (saved.isEmpty()) {
+            return;
+        }
+        evictListings(vendorEmail);
+
+        // One burst per flushed batch, after every cache it touches has been evicted
+        int sent = 0;
+        for (PendingImport item : saved) {
+            if (sendProductEvent(toProductEvent(item.product(), item.created() ? "CREATE" : "UPDATE"))) {
+                sent++;
+            }
+        }
+        log.info("Sent {} product events for an imported batch of {} from {}", sent, saved.size(), vendorEmail);
+    }
+
+    private List<PendingImport> saveImportBatch(List<PendingImport> pending, String vendorEmail,
+            BulkImportResponse result) {
+        if (pending.isEmpty()) {
+            return pending;
+        }
+        try {
+            List<Product> stored = transactionTemplate.execute(status -> productRepository.saveAllAndFlush(
+                    pending.stream().map(PendingImport::product).collect(Collectors.toList())));
+            List<PendingImport> saved = new ArrayList<>(pending.size());
+            for (int i = 0; i < pending.size(); i++) {
+                saved.add(pending.get(i).withProduct(stored.get(i)));
+            }
+            return saved;
+        } catch (RuntimeException e) {
+            // One bad row fails the whole JDBC batch; retry row by row to pinpoint it
+            log.warn("Bulk import batch failed, retrying {} rows individually: {}", pending.size(), e.getMessage());
+        }
+
+        List<PendingImport> saved = new ArrayList<>();
+        for (PendingImport item : pending) {
+            try {
+                PendingImport retry = prepareRetry(item, vendorEmail);
+                Product stored = transactionTemplate.execute(status -> productRepository.saveAndFlush(retry.product()));
+                saved.add(retry.withProduct(stored));
+            } catch (RuntimeException e) {
+                String message = e instanceof org.springframework.dao.DataIntegrityViolationException dive
+                        ? dive.getMostSpecificCause().getMessage()
+                        : e.getMessage();
+                rejectRow(result, item.row(), message);
+            }
+        }
+        return saved;
+    }
+
+    // The failed flush left ids and bumped versions on these objects; each row restarts from a clean state
+    private PendingImport prepareRetry(PendingImport item, String vendorEmail) {
+        if (item.created()) {
+            item.product().setId(null); // Drop the id drawn by the rolled-back insert
+            item.product().setVersion(null); // Otherwise Spring Data takes it for an existing row and merges a copy
+            return item;
+        }
+        Product current = productRepository.findById(item.product().getId())
+                .orElseThrow(() -> new ResourceNotFoundException("Product no longer exists"));
+        if (!Objects.equals(current.getVendorEmail(), vendorEmail)) {
+            throw new UnauthorizedException("SKU belongs to another vendor");
+        }
+        String previousImageUrl = current.getImageUrl();
+        return new PendingImport(item.row(), applyImportRow(current, item.row().request(), vendorEmail), false,
+                previousImageUrl);
+    }
+
+    private Product applyImportRow(Product current, ProductRequest request, String vendorEmail) {
+        Product product = current != null ? current : Product.builder().vendorEmail(vendorEmail).build();
+        if (request.getImageUrl() != null) {
+            applyImage(product, request.getImageUrl());
+        } else if (product.getImageStatus() == null) {
+            product.setImageStatus(ImageStatus.NONE); // As createProduct does; an existing image is kept
+        }
+        product.setSku(request.getSku());
+        product.setName(request.getName());
+        product.setDescription(request.getDescription());
+        product.setPrice(request.getPrice());
+        product.setStockQuantity(request.getStockQuantity());
+        product.setMinPrice(request.getMinPrice());
+        product.setCategory(request.getCategory());
+        product.setGender(request.getGender());
+        return product;
+    }
+
+    private String validateImportRow(ProductRequest request) {
+        if (request.getSku() == null || request.getSku().isBlank()) {
+            return "SKU is required";
+        }
+        if (request.getName() == null || request.getName().isBlank()) {
+            return "Name is required";
+        }
+        if (request.getPrice() == null || request.getPrice().compareTo(BigDecimal.ZERO) <= 0) {
+            return "Price must be greater than zero";
+        }
+        if (request.getMinPrice() != null && request.getMinPrice().compareTo(request.getPrice()) > 0) {
+            return "Minimum price cannot exceed price";
+        }
+        if (request.getStockQuantity() != null && request.getStockQuantity() < 0) {
+            return "Stock quantity cannot be negative";
+        }
+        if (request.getCategory() == null) {
+            return "Category is required";
+        }
+        return null;
+    }
+
+    private void rejectRow(BulkImportResponse result, ProductImportReader.Row row, String message) {
+        result.setFailed(result.getFailed() + 1);
+        result.getErrors().add(BulkImportResponse.RowError.builder()
+                .row(row.number())
+                .sku(row.request() != null ? row.request().getSku() : null)
+                .message(message)
+                .build());
+    }
+
+    private void evictListings(String vendorEmail) {
+        Cache vendorCache = cacheManager.getCache(CacheNames.VENDOR_PRODUCTS);
+        if (vendorCache != null && vendorEmail != null) {
+            vendorCache.evict(vendorEmail);
+        }
+        for (String name : List.of(CacheNames.PRODUCT_LIST, CacheNames.PRODUCT_PAGES)) {
+            Cache cache = cacheManager.getCache(name);
+            if (cache != null) {
+                cache.clear();
+            }
+        }
+    }
+
+    private static boolean isInlineImage(String imageUrl) {
+        return imageUrl != null && imageUrl.startsWith("data:image");
+    }
+
+    // Links are stored as-is; inline data URIs are written to storage in the background by ingestImage
+    private void applyImage(Product product, String imageUrl) {
+        if (isInlineImage(imageUrl)) {
+            product.setImageStatus(ImageStatus.PENDING); // Any previous image stays visible until the new one lands
+            return;
+        }
+        product.setImageUrl(imageUrl);
+        product.setThumbnailUrl(toThumbnailUrl(imageUrl));
+        product.setImageStatus(imageUrl != null ? ImageStatus.READY : ImageStatus.NONE);
+    }
+
+    private void ingestImage(Product product, String dataUri) {
+        Long id = product.getId();
+        String vendorEmail = product.getVendorEmail();
+        Long ticket = imageTickets.incrementAndGet();
+        pendingImages.put(id, ticket);
+
+        imageIngestionService.submit(() -> fileStorageService.saveMerchantImage(dataUri), (imageUrl, error) -> {
+            if (!pendingImages.remove(id, ticket)) {
+                log.info("Discarding superseded image upload for product {}", id);
+                return;
+            }
+            // Runs on an ingest thread; its own transaction, never the request's already-committed one
+            Product current = imageTransaction().execute(status -> {
+                Product found = productRepository.findById(id).orElse(null);
+                if (found == null) {
+                    return null; // Deleted meanwhile: the new blob stays unreferenced and is garbage-collected
+                }
+                if (error != null) {
+                    productRepository.updateImageStatus(id, ImageStatus.FAILED);
+                } else {
+                    productRepository.updateImage(id, imageUrl, toThumbnailUrl(imageUrl), ImageStatus.READY);
+                }
+                return found;
+            });
+            if (current == null) {
+                return;
+            }
+            if (error != null) {
+                log.error("Image ingestion failed for product {}", id, error);
+                current.setImageStatus(ImageStatus.FAILED);
+            } else {
+                swapImageReference(current.getImageUrl(), imageUrl);
+                current.setImageUrl(imageUrl);
+                current.setThumbnailUrl(toThumbnailUrl(imageUrl));
+                current.setImageStatus(ImageStatus.READY);
+            }
+            evictProduct(id, vendorEmail);
+            sendProductEvent(current, "UPDATE");
+        });
+    }
+
+    private TransactionTemplate imageTransaction() {
+        TransactionTemplate template = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        return template;
+    }
+
+    private void swapImageReference(String previousImageUrl, String imageUrl) {
+        if (Objects.equals(previousImageUrl, imageUrl)) {
+            return;
+        }
+        fileStorageService.retain(imageUrl);
+        fileStorageService.release(previousImageUrl);
+    }
+
+    private void evictProduct(Long id, String vendorEmail) {
+        Cache productCache = cacheManager.getCache(CacheNames.PRODUCT);
+        if (productCache != null) {
+            productCache.evict(id);
+        }
+        evictListings(vendorEmail);
+    }
+
+    private String toThumbnailUrl(String imageUrl) {
+        String thumbnail = fileStorageService.variantUrl(imageUrl, ImageVariant.THUMBNAIL);
+        if (thumbnail != null) {
+            return thumbnail;
+        }
+        if (imageUrl == null || imageUrl.startsWith("data:") || imageUrl.length() > 1024) {
+            return null;
         }
         return imageUrl;
     }
 
-    @Cacheable(value = "products")
-    public List<ProductResponse> getAllProducts() {
+    @Cacheable(value = CacheNames.PRODUCT_LIST)
+    public List<ProductSummary> getAllProducts() {
         log.info("Fetching all products");
-        return productRepository.findAll()
-                .stream()
-                .map(this::mapToProductResponse)
-                .collect(Collectors.toList());
+        return productRepository.findAllSummaries();
+    }
+
+    @Cacheable(value = CacheNames.PRODUCT_PAGES)
+    public ProductPageResponse getProductPage(int size, Long after, CategoryType category, Gender gender,
+            BigDecimal minPrice, BigDecimal maxPrice, boolean inStock) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        log.info("Fetching product page: size={}, after={}", pageSize, after);
+
+        // Fetch one extra row to learn whether another page exists without a COUNT query
+        List<ProductSummary> rows = productRepository.findPage(after, category, gender, minPrice, maxPrice, inStock,
+                Limit.of(pageSize + 1));
+        boolean hasNext = rows.size() > pageSize;
+        if (hasNext) {
+            // Copied: a subList view is not Serializable, so the Redis tier could not store the page
+            rows = new ArrayList<>(rows.subList(0, pageSize));
+        }
+
+        return ProductPageResponse.builder()
+                .content(rows)
+                .size(rows.size())
+                .hasNext(hasNext)
+                .nextCursor(hasNext ? rows.get(rows.size() - 1).getId() : null)
+                .build();
     }
 
-    public List<ProductResponse> getProductsByVendor(String vendorEmail) {
+    /**
+     * Writes the whole catalog to {@code out} as NDJSON or CSV while scrolling a
+     * streaming cursor; each row is detached once written so heap use stays flat.
+     */
+    @Transactional(readOnly = true)
+    public void exportProducts(boolean csv, OutputStream out) throws IOException {
+        log.info("Exporting product catalog as {}", csv ? "CSV" : "NDJSON");
+        try (Stream<Product> products = productRepository.streamAllBy()) {
+            if (csv) {
+                writeCsv(products, out);
+            } else {
+                writeNdjson(products, out);
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    // The writer puts the separator between records only, so an empty catalog exports as an empty body
+    private void writeNdjson(Stream<Product> products, OutputStream out) throws IOException {
+        try (SequenceWriter writer = objectMapper.writerFor(ProductResponse.class)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .withRootValueSeparator("\n")
+                .writeValues(out)) {
+            products.forEach(product -> {
+                try {
+                    writer.write(mapToProductResponse(product));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                entityManager.detach(product);
+            });
+        }
+        out.flush();
+    }
+
+    private void writeCsv(Stream<Product> products, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write("id,sku,name,description,price,stockQuantity,category,gender,imageUrl,minPrice,vendorEmail,createdAt\n");
+        products.forEach(product -> {
+            try {
+                writer.write(csvRow(product.getId(), product.getSku(), product.getName(), product.getDescription(),
+                        product.getPrice(), product.getStockQuantity(), product.getCategory(), product.getGender(),
+                        product.getImageUrl(), product.getMinPrice(), product.getVendorEmail(),
+                        product.getCreatedAt()));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            entityManager.detach(product);
+        });
+        writer.flush();
+    }
+
+    private String csvRow(Object... values) {
+        StringBuilder row = new StringBuilder();
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                row.append(',');
+            }
+            if (values[i] == null) {
+                continue;
+            }
+            String value = values[i].toString();
+            if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0
+                    || value.indexOf('\r') >= 0) {
+                row.append('"').append(value.replace("\"", "\"\"")).append('"');
+            } else {
+                row.append(value);
+            }
+        }
+        return row.append('\n').toString();
+    }
+
+    @Cacheable(value = CacheNames.VENDOR_PRODUCTS, key = "#vendorEmail", condition = "#vendorEmail != null")
+    public List<ProductSummary> getProductsByVendor(String vendorEmail) {
         log.info("Fetching products for vendor: {}", vendorEmail);
-        return productRepository.findByVendorEmail(vendorEmail)
-                .stream()
-                .map(this::mapToProductResponse)
-                .collect(Collectors.toList());
+        return productRepository.findSummariesByVendorEmail(vendorEmail);
     }
 
     @Timed(value = "product.fetch.time", description = "Time taken to fetch product by ID")
-    @Cacheable(value = "products", key = "#id")
+    @Cacheable(value = CacheNames.PRODUCT, key = "#id", sync = true)
     public ProductResponse getProductById(Long id) {
         log.info("Fetching product with id: {}", id);
         Product product = productRepository.findById(id)
@@ -91,21 +540,14 @@ public class ProductService {
                     return new ResourceNotFoundException("Product not found with id: " + id);
                 });
 
-        // Track view asynchronously to reduce latency
-        CompletableFuture.runAsync(() -> {
-            try {
-                kafkaTemplate.send("product-view-events",
-                        new ProductViewEvent(product.getId(), product.getSku(), product.getName(),
-                                System.currentTimeMillis()));
-            } catch (Exception e) {
-                log.warn("Failed to send product view event for id: {}: {}", id, e.getMessage());
-            }
-        });
-
         return mapToProductResponse(product);
     }
 
-    @CacheEvict(value = "products", allEntries = true)
+    @Caching(put = @CachePut(value = CacheNames.PRODUCT, key = "#id"), evict = {
+            @CacheEvict(value = CacheNames.VENDOR_PRODUCTS, key = "#requesterEmail",
+                    condition = "#requesterEmail != null"),
+            @CacheEvict(value = { CacheNames.PRODUCT_LIST, CacheNames.PRODUCT_PAGES }, allEntries = true)
+    })
     @Transactional
     public ProductResponse updateProduct(Long id, ProductRequest productRequest, String requesterEmail) {
         log.info("Updating product with id: {} by {}", id, requesterEmail);
@@ -121,17 +563,22 @@ public class ProductService {
             throw new UnauthorizedException("You do not have permission to update this product");
         }
 
-        String savedImageUrl = processImage(product.getVendorEmail(),
-                productRequest.getCategory().name(),
-                productRequest.getName(),
-                productRequest.getImageUrl());
+        // The update overwrites available stock, so it must be based on the latest stock move
+        if (productRequest.getVersion() == null) {
+            throw new IllegalArgumentException("Product version is required to update a product");
+        }
+        // Another edit or a stock move landed since the client read this product
+        if (!productRequest.getVersion().equals(product.getVersion())) {
+            throw new ObjectOptimisticLockingFailureException(Product.class, id);
+        }
 
         product.setSku(productRequest.getSku());
         product.setName(productRequest.getName());
         product.setDescription(productRequest.getDescription());
         product.setPrice(productRequest.getPrice());
         product.setStockQuantity(productRequest.getStockQuantity());
-        product.setImageUrl(savedImageUrl);
+        String previousImageUrl = product.getImageUrl();
+        applyImage(product, productRequest.getImageUrl());
         product.setMinPrice(productRequest.getMinPrice());
         product.setCategory(productRequest.getCategory());
         product.setGender(productRequest.getGender());
@@ -142,10 +589,56 @@ public class ProductService {
         // Emit Event
         sendProductEvent(updatedProduct, "UPDATE");
 
+        if (isInlineImage(productRequest.getImageUrl())) {
+            ingestImage(updatedProduct, productRequest.getImageUrl()); // Starts once this transaction commits
+        } else {
+            swapImageReference(previousImageUrl, updatedProduct.getImageUrl());
+        }
+
         return mapToProductResponse(updatedProduct);
     }
 
-    @CacheEvict(value = "products", allEntries = true)
+    @Caching(evict = {
+            @CacheEvict(value = CacheNames.PRODUCT, key = "#id"),
+            @CacheEvict(value = CacheNames.VENDOR_PRODUCTS, key = "#requesterEmail",
+                    condition = "#requesterEmail != null"),
+            @CacheEvict(value = { CacheNames.PRODUCT_LIST, CacheNames.PRODUCT_PAGES }, allEntries = true)
+    })
+    public ProductResponse uploadProductImage(Long id, MultipartFile image, String requesterEmail) {
+        log.info("Uploading image for product {} by {}", id, requesterEmail);
+        Product product = productRepository.findById(id)
+                .orElseThrow(() -> {
+                    log.error("Product image upload failed: ID {} not found", id);
+                    return new ResourceNotFoundException("Product not found with id: " + id);
+                });
+
+        // Ownership check
+        if (!product.getVendorEmail().equals(requesterEmail)) {
+            log.warn("Unauthorized image upload attempt for product {} by user {}", id, requesterEmail);
+            throw new UnauthorizedException("You do not have permission to update this product");
+        }
+
+        // Multipart bodies are already spooled by the container, so this is a stream-to-file copy
+        String imageUrl = fileStorageService.saveMerchantImage(image);
+        pendingImages.remove(id); // Supersedes any inline upload still in flight
+
+        String previousImageUrl = product.getImageUrl();
+        product.setImageUrl(imageUrl);
+        product.setThumbnailUrl(toThumbnailUrl(imageUrl));
+        product.setImageStatus(ImageStatus.READY);
+        Product updatedProduct = productRepository.save(product);
+
+        swapImageReference(previousImageUrl, imageUrl);
+        sendProductEvent(updatedProduct, "UPDATE");
+        return mapToProductResponse(updatedProduct);
+    }
+
+    @Caching(evict = {
+            @CacheEvict(value = CacheNames.PRODUCT, key = "#id"),
+            @CacheEvict(value = CacheNames.VENDOR_PRODUCTS, key = "#requesterEmail",
+                    condition = "#requesterEmail != null"),
+            @CacheEvict(value = { CacheNames.PRODUCT_LIST, CacheNames.PRODUCT_PAGES }, allEntries = true)
+    })
     public void deleteProduct(Long id, String requesterEmail) {
         log.info("Deleting product with id: {} by {}", id, requesterEmail);
         Product product = productRepository.findById(id)
@@ -161,31 +654,90 @@ public class ProductService {
         }
 
         productRepository.deleteById(id);
+        fileStorageService.release(product.getImageUrl());
 
         // Emit Event
         sendProductEvent(product, "DELETE");
     }
 
     private void sendProductEvent(Product product, String eventType) {
-        try {
-            ProductEvent event = ProductEvent.builder()
-                    .productId(product.getId())
-                    .sku(product.getSku())
-                    .name(product.getName())
-                    .description(product.getDescription())
-                    .price(product.getPrice())
-                    .categoryName(product.getCategory() != null ? product.getCategory().name() : null)
-                    .gender(product.getGender() != null ? product.getGender().name() : null)
-                    .stockQuantity(product.getStockQuantity())
-                    .imageUrl(product.getImageUrl())
-                    .eventType(eventType)
-                    .timestamp(System.currentTimeMillis())
-                    .build();
+        if (sendProductEvent(toProductEvent(product, eventType))) {
+            log.info("Sent {} event for product: {}", eventType, product.getName());
+        }
+    }
 
+    private boolean sendProductEvent(ProductEvent event) {
+        try {
             kafkaTemplate.send("product-events", event);
-            log.info("Sent {} event for product: {}", eventType, product.getName());
+            return true;
+        } catch (Exception e) {
+            log.error("Failed to send product event for id: {}", event.getProductId(), e);
+            return false;
+        }
+    }
+
+    private static ProductEvent toProductEvent(Product product, String eventType) {
+        return ProductEvent.builder()
+                .productId(product.getId())
+                .sku(product.getSku())
+                .name(product.getName())
+                .description(product.getDescription())
+                .price(product.getPrice())
+                .categoryName(product.getCategory() != null ? product.getCategory().name() : null)
+                .gender(product.getGender() != null ? product.getGender().name() : null)
+                .stockQuantity(product.getStockQuantity())
+                .imageUrl(product.getImageUrl())
+                .vendorEmail(product.getVendorEmail())
+                .eventType(eventType)
+                .timestamp(System.currentTimeMillis())
+                .build();
+    }
+
+    /** Reserves stock for {@code owner}; the returned token is needed to commit or release it. */
+    public StockReservationResponse reserveStock(Long id, int quantity, String owner) {
+        StockReservationResponse reservation = stockReservationService.reserve(id, quantity, owner);
+        stockMoved(reservation.getStock());
+        return reservation;
+    }
+
+    public StockLevel commitStock(Long id, String token, String owner) {
+        return stockMoved(stockReservationService.commit(id, token, owner));
+    }
+
+    public StockLevel releaseStock(Long id, String token, String owner) {
+        return stockMoved(stockReservationService.release(id, token, owner));
+    }
+
+    public StockLevel getStockLevel(Long id) {
+        return productRepository.findStockLevel(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + id));
+    }
+
+    @Scheduled(fixedDelayString = "${product.stock.expiry-interval-ms:60000}")
+    public void releaseExpiredReservations() {
+        stockReservationService.releaseExpired().forEach(this::stockMoved);
+    }
+
+    // Runs after the move has committed, so other nodes never refetch the stock it replaced
+    private StockLevel stockMoved(StockLevel level) {
+        evictProduct(level.getProductId(), level.getVendorEmail());
+        sendStockEvent(level);
+        return level;
+    }
+
+    // Own topic, keyed by product: product-events consumers expect a full product in every event
+    private void sendStockEvent(StockLevel level) {
+        try {
+            kafkaTemplate.send("product-stock-events", String.valueOf(level.getProductId()), StockEvent.builder()
+                    .productId(level.getProductId())
+                    .vendorEmail(level.getVendorEmail())
+                    .available(level.getAvailable())
+                    .reserved(level.getReserved())
+                    .version(level.getVersion())
+                    .timestamp(System.currentTimeMillis())
+                    .build());
         } catch (Exception e) {
-            log.error("Failed to send product event for id: {}", product.getId(), e);
+            log.error("Failed to send stock event for id: {}", level.getProductId(), e);
         }
     }
 
@@ -213,9 +765,13 @@ public class ProductService {
                 .category(product.getCategory())
                 .gender(product.getGender())
                 .imageUrl(product.getImageUrl())
+                .thumbnailUrl(product.getThumbnailUrl())
+                .imageStatus(product.getImageStatus())
                 .createdAt(product.getCreatedAt())
                 .minPrice(product.getMinPrice())
                 .vendorEmail(product.getVendorEmail())
+                .reservedQuantity(product.getReservedQuantity())
+                .version(product.getVersion())
                 .build();
     }
 }
@@ -0,0 +1,82 @@
+package com.ecommerce.product.service;
+
+import com.ecommerce.product.dto.ProductResponse;
+import com.ecommerce.product.dto.ProductViewEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Counts product views off the request path. Requests only push the already-built
+ * response into a lock-free ring; a scheduled drain aggregates per product and
+ * sends one compacted {@link ProductViewEvent} per product per window. When the ring
+ * is full new views are dropped (and counted) instead of slowing requests down.
+ */
+@Service
+@Slf4j
+public class ProductViewTracker {
+
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final MpscRingBuffer<ProductResponse> buffer;
+    private final Counter recorded;
+    private final Counter dropped;
+    private final Counter eventsSent;
+
+    public ProductViewTracker(KafkaTemplate<String, Object> kafkaTemplate, MeterRegistry registry,
+            @Value("${product.views.buffer-capacity:65536}") int bufferCapacity) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.buffer = new MpscRingBuffer<>(bufferCapacity);
+        this.recorded = Counter.builder("product.views.recorded").register(registry);
+        this.dropped = Counter.builder("product.views.dropped")
+                .description("Views discarded because the buffer was full")
+                .register(registry);
+        this.eventsSent = Counter.builder("product.views.events.sent").register(registry);
+        Gauge.builder("product.views.buffer.depth", buffer, MpscRingBuffer::size).register(registry);
+        Gauge.builder("product.views.buffer.capacity", buffer, MpscRingBuffer::capacity).register(registry);
+    }
+
+    public void record(ProductResponse product) {
+        if (!buffer.offer(product)) {
+            dropped.increment();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${product.views.flush-interval-ms:5000}")
+    public synchronized void flush() {
+        Map<Long, ProductViewEvent> window = new HashMap<>();
+        long now = System.currentTimeMillis();
+        int drained = buffer.drain(product -> {
+            ProductViewEvent event = window.computeIfAbsent(product.getId(),
+                    id -> new ProductViewEvent(id, product.getSku(), product.getName(), now, 0L));
+            event.setViewCount(event.getViewCount() + 1);
+        });
+        if (drained == 0) {
+            return;
+        }
+        recorded.increment(drained);
+
+        for (ProductViewEvent event : window.values()) {
+            try {
+                kafkaTemplate.send("product-view-events", String.valueOf(event.getProductId()), event);
+                eventsSent.increment();
+            } catch (Exception e) {
+                log.warn("Failed to send product view event for id: {}: {}", event.getProductId(), e.getMessage());
+            }
+        }
+        log.debug("Flushed {} views across {} products", drained, window.size());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+}
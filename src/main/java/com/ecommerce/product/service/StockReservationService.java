@@ -0,0 +1,170 @@
+package com.ecommerce.product.service;
+
+import com.ecommerce.product.dto.StockLevel;
+import com.ecommerce.product.dto.StockReservationResponse;
+import com.ecommerce.product.entity.StockReservation;
+import com.ecommerce.product.exception.InsufficientStockException;
+import com.ecommerce.product.exception.ResourceNotFoundException;
+import com.ecommerce.product.exception.UnauthorizedException;
+import com.ecommerce.product.repository.ProductRepository;
+import com.ecommerce.product.repository.StockReservationRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Moves stock between available and reserved. Each reservation is recorded under
+ * a random token and the caller that made it; only that caller can commit or
+ * release it, and only by presenting the token. A move is one conditional UPDATE
+ * whose row lock is held until the transaction ends, so concurrent callers cannot
+ * oversell, and the stock level read back inside the same transaction is exactly
+ * the one this move produced. A reservation left open longer than
+ * {@code product.stock.reservation-ttl} can no longer be committed, and
+ * {@link #releaseExpired()} returns its units to available stock.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class StockReservationService {
+
+    private final ProductRepository productRepository;
+    private final StockReservationRepository reservationRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${product.stock.reservation-ttl:15m}")
+    private Duration reservationTtl;
+
+    @Value("${product.stock.expiry-batch-size:500}")
+    private int expiryBatchSize;
+
+    /** Moves quantity from available to reserved, or throws if not enough is available. */
+    @Transactional
+    public StockReservationResponse reserve(Long productId, int quantity, String owner) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Quantity must be positive");
+        }
+        if (productRepository.reserveStock(productId, quantity) == 0) {
+            throw shortfall(productId, quantity,
+                    "Insufficient stock for product " + productId + " to reserve " + quantity);
+        }
+        StockReservation reservation = reservationRepository.save(StockReservation.builder()
+                .token(UUID.randomUUID().toString())
+                .productId(productId)
+                .quantity(quantity)
+                .owner(owner)
+                .build());
+        return StockReservationResponse.builder()
+                .token(reservation.getToken())
+                .productId(productId)
+                .quantity(quantity)
+                .stock(stockLevel(productId))
+                .build();
+    }
+
+    /** Consumes a reservation: its units leave reserved and are gone for good. */
+    @Transactional
+    public StockLevel commit(Long productId, String token, String owner) {
+        StockReservation reservation = claim(productId, token, owner);
+        if (productRepository.commitReservedStock(productId, reservation.getQuantity()) == 0) {
+            throw shortfall(productId, reservation.getQuantity(),
+                    "Product " + productId + " has fewer than " + reservation.getQuantity() + " reserved units");
+        }
+        return stockLevel(productId);
+    }
+
+    /** Returns a reservation's units to available stock. */
+    @Transactional
+    public StockLevel release(Long productId, String token, String owner) {
+        StockReservation reservation = claim(productId, token, owner);
+        if (productRepository.releaseReservedStock(productId, reservation.getQuantity()) == 0) {
+            throw shortfall(productId, reservation.getQuantity(),
+                    "Product " + productId + " has fewer than " + reservation.getQuantity() + " reserved units");
+        }
+        return stockLevel(productId);
+    }
+
+    /**
+     * Releases reservations past their TTL, each in its own transaction under the
+     * reservation's row lock, so a sweep never races the owner's commit. Returns the
+     * stock levels it produced.
+     */
+    public List<StockLevel> releaseExpired() {
+        List<StockLevel> released = new ArrayList<>();
+        List<Long> expired;
+        do {
+            expired = reservationRepository.findExpiredIds(LocalDateTime.now().minus(reservationTtl),
+                    Limit.of(expiryBatchSize));
+            for (Long id : expired) {
+                StockLevel level = transactionTemplate.execute(status -> releaseIfExpired(id));
+                if (level != null) {
+                    released.add(level);
+                }
+            }
+        } while (expired.size() == expiryBatchSize);
+        if (!released.isEmpty()) {
+            log.info("Released {} expired stock reservations", released.size());
+        }
+        return released;
+    }
+
+    private StockLevel releaseIfExpired(Long id) {
+        StockReservation reservation = reservationRepository.findLockedById(id)
+                .filter(this::isExpired)
+                .orElse(null);
+        if (reservation == null) {
+            return null; // Committed or released by its owner since the scan
+        }
+        reservationRepository.deleteReservation(id);
+        if (productRepository.releaseReservedStock(reservation.getProductId(), reservation.getQuantity()) == 0) {
+            log.warn("Expired reservation {} held {} units of product {}, which no longer has them reserved",
+                    reservation.getToken(), reservation.getQuantity(), reservation.getProductId());
+            return null;
+        }
+        return productRepository.findStockLevel(reservation.getProductId()).orElse(null);
+    }
+
+    private boolean isExpired(StockReservation reservation) {
+        return reservation.getCreatedAt().isBefore(LocalDateTime.now().minus(reservationTtl));
+    }
+
+    private StockReservation claim(Long productId, String token, String owner) {
+        StockReservation reservation = reservationRepository.findByToken(token)
+                .filter(r -> r.getProductId().equals(productId))
+                .orElseThrow(() -> new ResourceNotFoundException(
+                        "No open reservation " + token + " for product " + productId));
+        if (!reservation.getOwner().equals(owner)) {
+            log.warn("Reservation {} for product {} presented by {}, but it belongs to {}", token, productId, owner,
+                    reservation.getOwner());
+            throw new UnauthorizedException("This reservation belongs to another caller");
+        }
+        if (isExpired(reservation)) {
+            // Left for the sweeper, which returns its units to available stock
+            throw new ResourceNotFoundException("Reservation " + token + " has expired");
+        }
+        reservationRepository.deleteReservation(reservation.getId());
+        return reservation;
+    }
+
+    private StockLevel stockLevel(Long productId) {
+        return productRepository.findStockLevel(productId)
+                .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + productId));
+    }
+
+    private RuntimeException shortfall(Long productId, int quantity, String message) {
+        // Zero rows updated: either the product is missing or the condition failed
+        StockLevel level = stockLevel(productId);
+        log.info("Stock move of {} rejected for product {}: {} available, {} reserved", quantity, productId,
+                level.getAvailable(), level.getReserved());
+        return new InsufficientStockException(message);
+    }
+}
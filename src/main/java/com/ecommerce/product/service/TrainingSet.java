@@ -0,0 +1,78 @@
+package com.ecommerce.product.service;
+
+import java.util.Arrays;
+
+import static com.ecommerce.product.service.ModelSnapshot.INPUT_SIZE;
+
+/**
+ * Training examples packed into flat primitive arrays (features row-major), so a
+ * million negotiations cost tens of megabytes instead of a million small objects.
+ */
+final class TrainingSet {
+
+    private double[] features;
+    private double[] labels;
+    private int size;
+    private long highWatermark; // Highest BargainHistory id loaded, 0 when not loaded from history
+    private long[] untrainedIds = new long[16]; // Flagged as trained once a model built on them is published
+    private int untrainedCount;
+
+    TrainingSet() {
+        this(1024);
+    }
+
+    TrainingSet(int initialCapacity) {
+        int capacity = Math.max(initialCapacity, 16);
+        this.features = new double[capacity * INPUT_SIZE];
+        this.labels = new double[capacity];
+    }
+
+    static TrainingSet of(double[][] inputs, double[][] labels) {
+        TrainingSet set = new TrainingSet(inputs.length);
+        for (int i = 0; i < inputs.length; i++) {
+            set.add(inputs[i], labels[i][0]);
+        }
+        return set;
+    }
+
+    void add(double[] input, double label) {
+        if (size == labels.length) {
+            labels = Arrays.copyOf(labels, size * 2);
+            features = Arrays.copyOf(features, size * 2 * INPUT_SIZE);
+        }
+        System.arraycopy(input, 0, features, size * INPUT_SIZE, INPUT_SIZE);
+        labels[size++] = label;
+    }
+
+    void advanceWatermark(long id) {
+        highWatermark = Math.max(highWatermark, id);
+    }
+
+    // Recorded even for rows that could not become examples, so they are not offered again
+    void recordUntrained(long id) {
+        if (untrainedCount == untrainedIds.length) {
+            untrainedIds = Arrays.copyOf(untrainedIds, untrainedCount * 2);
+        }
+        untrainedIds[untrainedCount++] = id;
+    }
+
+    long[] untrainedIds() {
+        return Arrays.copyOf(untrainedIds, untrainedCount);
+    }
+
+    long highWatermark() {
+        return highWatermark;
+    }
+
+    int size() {
+        return size;
+    }
+
+    double[] features() {
+        return features;
+    }
+
+    double[] labels() {
+        return labels;
+    }
+}
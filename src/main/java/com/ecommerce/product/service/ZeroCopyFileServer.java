@@ -0,0 +1,297 @@
+package com.ecommerce.product.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+
+/**
+ * Serves files from disk. On Tomcat with sendfile enabled the body is handed to the
+ * connector, which streams it with sendfile(2) and never copies it into the JVM;
+ * only that path is zero-copy. Elsewhere the target is the servlet output stream,
+ * not a socket channel, so {@link FileChannel#transferTo} cannot avoid the copy; the
+ * file is read into a heap buffer and copied once into the connector instead. Size,
+ * Last-Modified, ETag and content type are kept in an in-memory index so a cache
+ * hit costs no filesystem call before the transfer, and open channels are reused
+ * through a bounded handle cache. Supports single byte-range requests and
+ * If-None-Match / If-Modified-Since / If-Range.
+ */
+@Service
+@Slf4j
+public class ZeroCopyFileServer {
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+    private static final int COPY_BUFFER_SIZE = 16 * 1024;
+
+    public record FileMeta(long size, long lastModified, String eTag, String contentType) {
+    }
+
+    private final Cache<Path, FileMeta> metadata;
+    private final Cache<Path, FileChannel> handles;
+    private final Counter sendfileBytes;
+    private final Counter transferBytes;
+
+    public ZeroCopyFileServer(MeterRegistry registry,
+            @Value("${product.uploads.metadata-cache-size:100000}") long metadataCacheSize,
+            @Value("${product.uploads.open-file-handles:256}") long openFileHandles,
+            @Value("${product.uploads.metadata-ttl:10m}") Duration metadataTtl) {
+        this.metadata = Caffeine.newBuilder()
+                .maximumSize(metadataCacheSize)
+                .expireAfterWrite(metadataTtl) // Bounds staleness for files replaced or deleted on disk
+                .recordStats()
+                .build();
+        this.handles = Caffeine.newBuilder()
+                .maximumSize(openFileHandles)
+                .expireAfterAccess(Duration.ofMinutes(1))
+                .removalListener((Path path, FileChannel channel, RemovalCause cause) -> closeQuietly(channel))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(registry, metadata, "uploadMetadata");
+        CaffeineCacheMetrics.monitor(registry, handles, "uploadFileHandles");
+        this.sendfileBytes = Counter.builder("uploads.served.bytes").tag("mode", "sendfile").register(registry);
+        this.transferBytes = Counter.builder("uploads.served.bytes").tag("mode", "transfer").register(registry);
+    }
+
+    public boolean serve(Path file, CacheControl cacheControl, HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        return serve(file, null, cacheControl, request, response);
+    }
+
+    /**
+     * Writes the file (or the requested range of it) to the response. A non-null
+     * {@code eTag} replaces the one derived from size and modification time, for
+     * callers that already know a content hash. Returns false when the file does not
+     * exist, leaving the response untouched.
+     */
+    public boolean serve(Path file, String eTag, CacheControl cacheControl, HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        file = file.toAbsolutePath().normalize();
+        FileMeta meta = metadata(file);
+        if (meta == null) {
+            return false;
+        }
+        if (eTag != null) {
+            meta = new FileMeta(meta.size(), meta.lastModified(), "\"" + eTag + "\"", meta.contentType());
+        }
+
+        response.setHeader(HttpHeaders.ETAG, meta.eTag());
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, meta.lastModified());
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl.getHeaderValue());
+        if (notModified(meta, request)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return true;
+        }
+
+        long start = 0;
+        long end = meta.size() - 1;
+        String range = request.getHeader(HttpHeaders.RANGE);
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (range != null && (ifRange == null || ifRange.equals(meta.eTag()))) {
+            long[] bounds = parseRange(range, meta.size());
+            if (bounds == null) {
+                response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + meta.size());
+                return true;
+            }
+            if (bounds.length == 2) {
+                start = bounds[0];
+                end = bounds[1];
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + meta.size());
+            }
+        }
+
+        long length = end - start + 1;
+        response.setContentType(meta.contentType());
+        response.setContentLengthLong(length);
+        if ("HEAD".equals(request.getMethod()) || length <= 0) {
+            return true;
+        }
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            // The connector streams the file with sendfile(2) after the handler returns
+            request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            sendfileBytes.increment(length);
+            return true;
+        }
+
+        try {
+            transfer(file, start, length, response);
+        } catch (NoSuchFileException e) {
+            invalidate(file);
+            throw e;
+        }
+        transferBytes.increment(length);
+        return true;
+    }
+
+    public void invalidate(Path file) {
+        file = file.toAbsolutePath().normalize();
+        metadata.invalidate(file);
+        handles.invalidate(file);
+    }
+
+    private FileMeta metadata(Path file) throws IOException {
+        FileMeta meta = metadata.getIfPresent(file);
+        if (meta != null) {
+            return meta;
+        }
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+        if (!attributes.isRegularFile()) {
+            return null;
+        }
+        long lastModified = attributes.lastModifiedTime().toMillis();
+        meta = new FileMeta(attributes.size(), lastModified,
+                "\"" + Long.toHexString(lastModified) + "-" + Long.toHexString(attributes.size()) + "\"",
+                MediaTypeFactory.getMediaType(file.getFileName().toString())
+                        .orElse(MediaType.APPLICATION_OCTET_STREAM).toString());
+        metadata.put(file, meta);
+        return meta;
+    }
+
+    private boolean notModified(FileMeta meta, HttpServletRequest request) {
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            return ifNoneMatch.equals("*") || ifNoneMatch.contains(meta.eTag());
+        }
+        long ifModifiedSince = request.getDateHeader(HttpHeaders.IF_MODIFIED_SINCE);
+        return ifModifiedSince != -1 && meta.lastModified() / 1000 <= ifModifiedSince / 1000;
+    }
+
+    /**
+     * Returns {start, end} for a satisfiable single range, an empty array when the
+     * header should be ignored (multiple or malformed ranges, served in full), or
+     * null when the range cannot be satisfied.
+     */
+    private long[] parseRange(String header, long size) {
+        if (!header.startsWith("bytes=") || header.indexOf(',') >= 0) {
+            return new long[0];
+        }
+        String spec = header.substring(6).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return new long[0];
+        }
+        try {
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+            long start;
+            long end;
+            if (first.isEmpty()) {
+                long suffix = Long.parseLong(last); // "bytes=-500": the final 500 bytes
+                if (suffix <= 0) {
+                    return null;
+                }
+                start = Math.max(0, size - suffix);
+                end = size - 1;
+            } else {
+                start = Long.parseLong(first);
+                end = last.isEmpty() ? size - 1 : Math.min(Long.parseLong(last), size - 1);
+            }
+            return start < size && start <= end ? new long[] { start, end } : null;
+        } catch (NumberFormatException e) {
+            return new long[0];
+        }
+    }
+
+    // One heap copy; transferTo into a wrapped servlet stream would stage through a direct buffer as well
+    private void transfer(Path file, long start, long length, HttpServletResponse response) throws IOException {
+        OutputStream target = response.getOutputStream();
+        ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(length, COPY_BUFFER_SIZE));
+        FileChannel channel = cachedChannel(file);
+        FileChannel fresh = null;
+        long sent = 0;
+        try {
+            while (sent < length) {
+                int read;
+                buffer.clear().limit((int) Math.min(buffer.capacity(), length - sent));
+                try {
+                    read = channel.read(buffer, start + sent);
+                } catch (ClosedChannelException e) {
+                    if (fresh != null) {
+                        throw e;
+                    }
+                    // Evicted and closed by the handle cache mid-transfer; resume on a private handle
+                    fresh = FileChannel.open(file, StandardOpenOption.READ);
+                    channel = fresh;
+                    continue;
+                }
+                if (read <= 0) {
+                    throw new IOException("File truncated while serving: " + file.getFileName());
+                }
+                target.write(buffer.array(), 0, read);
+                sent += read;
+            }
+        } finally {
+            if (fresh != null) {
+                fresh.close();
+            }
+        }
+    }
+
+    private FileChannel cachedChannel(Path file) throws IOException {
+        try {
+            return handles.get(file, path -> {
+                try {
+                    return FileChannel.open(path, StandardOpenOption.READ);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private void closeQuietly(FileChannel channel) {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.debug("Failed to close cached file handle: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        handles.invalidateAll();
+    }
+}
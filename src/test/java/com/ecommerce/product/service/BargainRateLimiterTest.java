@@ -0,0 +1,103 @@
+package com.ecommerce.product.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Checks that a message is admitted only when both the user and the (user,
+ * product) bucket have a token, and that a rejection costs neither bucket one.
+ */
+class BargainRateLimiterTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void rejectionByTheProductBucketRefundsTheUserBucket() {
+        // User: burst of 3; product: burst of 1, refilled once a minute
+        BargainRateLimiter limiter = localLimiter(3, 1);
+
+        assertThat(limiter.tryAcquire(BargainRateLimiter.Channel.STOMP, "u1", 1L).allowed()).isTrue();
+        for (int i = 0; i < 5; i++) {
+            BargainRateLimiter.Decision decision = limiter.tryAcquire(BargainRateLimiter.Channel.STOMP, "u1", 1L);
+            assertThat(decision.allowed()).isFalse();
+            assertThat(decision.scope()).isEqualTo("product");
+            assertThat(decision.retryAfterMillis()).isPositive();
+        }
+
+        // Had the rejections spent user tokens, the user bucket would already be empty
+        assertThat(limiter.tryAcquire(BargainRateLimiter.Channel.STOMP, "u1", 2L).allowed()).isTrue();
+        assertThat(limiter.tryAcquire(BargainRateLimiter.Channel.STOMP, "u1", 3L).allowed()).isTrue();
+        BargainRateLimiter.Decision exhausted = limiter.tryAcquire(BargainRateLimiter.Channel.STOMP, "u1", 4L);
+        assertThat(exhausted.allowed()).isFalse();
+        assertThat(exhausted.scope()).isEqualTo("user");
+
+        assertThat(decisions("stomp", "allowed", "none")).isEqualTo(3);
+        assertThat(decisions("stomp", "throttled", "product")).isEqualTo(5);
+        assertThat(decisions("stomp", "throttled", "user")).isEqualTo(1);
+    }
+
+    @Test
+    void usersDoNotShareBuckets() {
+        BargainRateLimiter limiter = localLimiter(1, 1);
+
+        assertThat(limiter.tryAcquire(BargainRateLimiter.Channel.HTTP, "u1", null).allowed()).isTrue();
+        assertThat(limiter.tryAcquire(BargainRateLimiter.Channel.HTTP, "u1", null).allowed()).isFalse();
+        assertThat(limiter.tryAcquire(BargainRateLimiter.Channel.HTTP, "u2", null).allowed()).isTrue();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void redisChecksBothBucketsInOneScriptCall() {
+        StringRedisTemplate template = mock(StringRedisTemplate.class);
+        // The script reports the second bucket (the product) as full and sets neither
+        when(template.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+                .thenReturn(List.of(2L, 1500L));
+        ObjectProvider<StringRedisTemplate> provider = mock(ObjectProvider.class);
+        when(provider.getObject()).thenReturn(template);
+        BargainRateLimiter limiter = new BargainRateLimiter(provider, registry, true, "redis", 30, 10, 12, 5);
+
+        BargainRateLimiter.Decision decision = limiter.tryAcquire(BargainRateLimiter.Channel.STOMP, "u1", 7L);
+
+        assertThat(decision.allowed()).isFalse();
+        assertThat(decision.scope()).isEqualTo("product");
+        assertThat(decision.retryAfterMillis()).isEqualTo(1500L);
+        verify(template).execute(any(RedisScript.class), eq(List.of("bargain:rl:u:u1", "bargain:rl:up:u1:7")),
+                any(Object[].class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void unreachableRedisFallsBackToLocalBuckets() {
+        ObjectProvider<StringRedisTemplate> provider = mock(ObjectProvider.class);
+        when(provider.getObject()).thenThrow(new IllegalStateException("no redis"));
+        BargainRateLimiter limiter = new BargainRateLimiter(provider, registry, true, "redis", 60, 1, 60, 1);
+
+        assertThat(limiter.tryAcquire(BargainRateLimiter.Channel.STOMP, "u1", 1L).allowed()).isTrue();
+        assertThat(limiter.tryAcquire(BargainRateLimiter.Channel.STOMP, "u1", 1L).allowed()).isFalse();
+        assertThat(registry.counter("bargain.rate.limit.redis.fallbacks").count()).isEqualTo(2);
+    }
+
+    @SuppressWarnings("unchecked")
+    private BargainRateLimiter localLimiter(int userBurst, int productBurst) {
+        return new BargainRateLimiter(mock(ObjectProvider.class), registry, true, "local", 1, userBurst, 1,
+                productBurst);
+    }
+
+    private double decisions(String channel, String outcome, String scope) {
+        return registry.counter("bargain.rate.limit.decisions", "channel", channel, "outcome", outcome,
+                "scope", scope).count();
+    }
+}
@@ -0,0 +1,86 @@
+package com.ecommerce.product.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Walks the breaker through CLOSED, OPEN, HALF_OPEN and back, and checks that a
+ * call granted before a transition cannot decide the state after it.
+ */
+class CircuitBreakerTest {
+
+    @Test
+    void opensOnFailureRateThenClosesAfterASuccessfulTrial() {
+        // No open duration, so the first call after opening is the half-open trial
+        CircuitBreaker breaker = new CircuitBreaker("test", 4, 4, 50, Duration.ZERO);
+
+        succeed(breaker);
+        succeed(breaker);
+        fail(breaker);
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED); // Below minimum calls
+        fail(breaker);
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+
+        long trial = breaker.tryAcquire();
+        assertThat(trial).isNotEqualTo(CircuitBreaker.NO_PERMIT);
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+        assertThat(breaker.tryAcquire()).isEqualTo(CircuitBreaker.NO_PERMIT); // One trial at a time
+
+        breaker.onSuccess(trial);
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void openBreakerRejectsUntilTheOpenDurationPasses() {
+        CircuitBreaker breaker = new CircuitBreaker("test", 2, 2, 50, Duration.ofHours(1));
+
+        fail(breaker);
+        fail(breaker);
+
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(breaker.tryAcquire()).isEqualTo(CircuitBreaker.NO_PERMIT);
+    }
+
+    @Test
+    void failedTrialOpensAgain() {
+        CircuitBreaker breaker = new CircuitBreaker("test", 2, 2, 50, Duration.ZERO);
+        fail(breaker);
+        fail(breaker);
+
+        long trial = breaker.tryAcquire();
+        breaker.onFailure(trial);
+
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    void outcomesOfPermitsFromAnEarlierStateAreIgnored() {
+        CircuitBreaker breaker = new CircuitBreaker("test", 2, 2, 50, Duration.ZERO);
+        long slow = breaker.tryAcquire(); // Still running when the breaker opens
+        fail(breaker);
+        fail(breaker);
+        long trial = breaker.tryAcquire();
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+
+        breaker.onSuccess(slow);
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+        breaker.onSuccess(trial);
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+
+        breaker.onFailure(slow);
+        breaker.onFailure(trial);
+        fail(breaker);
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED); // Only one failure counted
+    }
+
+    private static void succeed(CircuitBreaker breaker) {
+        breaker.onSuccess(breaker.tryAcquire());
+    }
+
+    private static void fail(CircuitBreaker breaker) {
+        breaker.onFailure(breaker.tryAcquire());
+    }
+}
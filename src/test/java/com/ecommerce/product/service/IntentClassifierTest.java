@@ -0,0 +1,60 @@
+package com.ecommerce.product.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks the automaton keeps the whole-word semantics of the regexes it replaced,
+ * including keywords that span a space and keywords hidden inside longer words.
+ */
+class IntentClassifierTest {
+
+    private IntentClassifier classifier;
+
+    @BeforeEach
+    void setUp() {
+        classifier = new IntentClassifier(new MockEnvironment());
+        classifier.init();
+    }
+
+    @Test
+    void keywordInsideALongerWordDoesNotMatch() {
+        assertThat(Intent.PRICE_COMPLAINT.in(classifier.classify("I'll take the highway"))).isFalse();
+        assertThat(Intent.GREETING.in(classifier.classify("this is my history"))).isFalse();
+        assertThat(Intent.PRICE_COMPLAINT.in(classifier.classify("that price is too high!"))).isTrue();
+    }
+
+    @Test
+    void keywordSpanningASpaceMatchesAsAWhole() {
+        int mask = classifier.classify("How about 40?");
+
+        assertThat(Intent.OFFER.in(mask)).isTrue();
+        assertThat(Intent.OFFER.in(classifier.classify("howabout 40"))).isFalse();
+        assertThat(Intent.OFFER.in(classifier.classify("how is it about"))).isFalse();
+    }
+
+    @Test
+    void everyIntentInTheMessageIsReported() {
+        int mask = classifier.classify("Hello, nice shirt but way too expensive. Forget it.");
+
+        assertThat(Intent.fromMask(mask)).containsExactlyInAnyOrder(Intent.GREETING, Intent.COMPLIMENT,
+                Intent.PRICE_COMPLAINT, Intent.WALK_AWAY);
+        assertThat(classifier.classify("")).isZero();
+        assertThat(classifier.classify(null)).isZero();
+    }
+
+    @Test
+    void configuredKeywordsReplaceTheBuiltInOnes() {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("bargain.intents.walk-away[0]", "no thanks");
+        IntentClassifier configured = new IntentClassifier(environment);
+        configured.init();
+
+        assertThat(Intent.WALK_AWAY.in(configured.classify("no thanks, bye"))).isTrue();
+        assertThat(Intent.WALK_AWAY.in(configured.classify("forget it"))).isFalse();
+        assertThat(Intent.GREETING.in(configured.classify("hi"))).isTrue();
+    }
+}
@@ -0,0 +1,131 @@
+package com.ecommerce.product.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.Instant;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static com.ecommerce.product.service.ModelSnapshot.HIDDEN_SIZE;
+import static com.ecommerce.product.service.ModelSnapshot.INPUT_SIZE;
+
+/**
+ * Inference cost of the flattened {@link ModelSnapshot} against the nested-array
+ * forward pass it replaced, which allocated the hidden layer and a dot-product
+ * result on every call. Both use the same weights and inputs. Run with:
+ *
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=org.openjdk.jmh.Main \
+ *     -Dexec.args="ModelSnapshotBenchmark -prof gc"
+ * </pre>
+ *
+ * {@code -prof gc} shows the allocation rate, which should be zero for the
+ * snapshot paths.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ModelSnapshotBenchmark {
+
+    private static final int BATCH = 1024;
+
+    private ModelSnapshot snapshot;
+    private double[][] nestedWeights1;
+    private double[][] nestedWeights2;
+    private double[] bias1;
+    private double[] bias2;
+    private double[][] inputs;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        double[] weights1 = new double[HIDDEN_SIZE * INPUT_SIZE];
+        double[] weights2 = new double[HIDDEN_SIZE];
+        bias1 = new double[HIDDEN_SIZE];
+        bias2 = new double[] { random.nextGaussian() * 0.1 };
+        nestedWeights1 = new double[INPUT_SIZE][HIDDEN_SIZE];
+        nestedWeights2 = new double[HIDDEN_SIZE][1];
+        for (int j = 0; j < HIDDEN_SIZE; j++) {
+            for (int i = 0; i < INPUT_SIZE; i++) {
+                weights1[j * INPUT_SIZE + i] = random.nextGaussian() * 0.1;
+                nestedWeights1[i][j] = weights1[j * INPUT_SIZE + i];
+            }
+            weights2[j] = random.nextGaussian() * 0.1;
+            nestedWeights2[j][0] = weights2[j];
+            bias1[j] = random.nextGaussian() * 0.1;
+        }
+        snapshot = new ModelSnapshot(1, 0, Instant.now(), weights1, weights2, bias1.clone(), bias2[0]);
+
+        inputs = new double[BATCH][INPUT_SIZE];
+        for (double[] input : inputs) {
+            for (int i = 0; i < INPUT_SIZE; i++) {
+                input[i] = random.nextDouble();
+            }
+        }
+    }
+
+    @Benchmark
+    public double snapshotPredict() {
+        return snapshot.predict(nextInput());
+    }
+
+    @Benchmark
+    public double nestedPredict() {
+        return nested(nextInput());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void snapshotBatch(Blackhole bh) {
+        for (double[] input : inputs) {
+            bh.consume(snapshot.predict(input));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void nestedBatch(Blackhole bh) {
+        for (double[] input : inputs) {
+            bh.consume(nested(input));
+        }
+    }
+
+    private double[] nextInput() {
+        double[] input = inputs[next];
+        next = (next + 1) & (BATCH - 1);
+        return input;
+    }
+
+    // The forward pass as it was before the weights were flattened
+    private double nested(double[] input) {
+        double[] hidden = new double[HIDDEN_SIZE];
+        for (int j = 0; j < HIDDEN_SIZE; j++) {
+            double sum = bias1[j];
+            for (int i = 0; i < INPUT_SIZE; i++) {
+                sum += input[i] * nestedWeights1[i][j];
+            }
+            hidden[j] = ModelSnapshot.sigmoid(sum);
+        }
+        double[] out = new double[1];
+        for (int i = 0; i < HIDDEN_SIZE; i++) {
+            out[0] += hidden[i] * nestedWeights2[i][0];
+        }
+        return ModelSnapshot.sigmoid(out[0] + bias2[0]);
+    }
+}
@@ -0,0 +1,213 @@
+package com.ecommerce.product.service;
+
+import com.ecommerce.product.dto.StockLevel;
+import com.ecommerce.product.dto.StockReservationResponse;
+import com.ecommerce.product.entity.CategoryType;
+import com.ecommerce.product.entity.Product;
+import com.ecommerce.product.entity.StockReservation;
+import com.ecommerce.product.exception.InsufficientStockException;
+import com.ecommerce.product.exception.ResourceNotFoundException;
+import com.ecommerce.product.exception.UnauthorizedException;
+import com.ecommerce.product.repository.ProductRepository;
+import com.ecommerce.product.repository.StockReservationRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Races many virtual-thread callers against one product's stock on a real
+ * database, to check that reservations never oversell and that a reservation
+ * is consumed at most once.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:stock;MODE=MySQL;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop" })
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(StockReservationService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // Every move must commit on its own, as in production
+class StockReservationServiceTest {
+
+    private static final int STOCK = 50;
+    private static final int CALLERS = 500;
+
+    @Autowired
+    private StockReservationService stockReservationService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private StockReservationRepository reservationRepository;
+
+    @AfterEach
+    void cleanUp() {
+        reservationRepository.deleteAll();
+        productRepository.deleteAll();
+    }
+
+    @Test
+    void concurrentReservationsNeverOversell() throws Exception {
+        Long productId = createProduct(STOCK);
+        AtomicInteger reserved = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+
+        List<Callable<Void>> callers = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            String owner = "shopper" + i + "@example.com";
+            callers.add(() -> {
+                try {
+                    StockReservationResponse reservation = stockReservationService.reserve(productId, 1, owner);
+                    assertThat(reservation.getStock().getAvailable()).isBetween(0, STOCK - 1);
+                    reserved.incrementAndGet();
+                } catch (InsufficientStockException e) {
+                    rejected.incrementAndGet();
+                }
+                return null;
+            });
+        }
+        runTogether(callers);
+
+        assertThat(reserved.get()).isEqualTo(STOCK);
+        assertThat(rejected.get()).isEqualTo(CALLERS - STOCK);
+        StockLevel level = productRepository.findStockLevel(productId).orElseThrow();
+        assertThat(level.getAvailable()).isZero();
+        assertThat(level.getReserved()).isEqualTo(STOCK);
+        assertThat(reservationRepository.count()).isEqualTo(STOCK);
+    }
+
+    @Test
+    void reservationIsConsumedAtMostOnce() throws Exception {
+        Long productId = createProduct(STOCK);
+        List<StockReservationResponse> reservations = new ArrayList<>();
+        for (int i = 0; i < STOCK; i++) {
+            reservations.add(stockReservationService.reserve(productId, 1, "shopper" + i + "@example.com"));
+        }
+        AtomicInteger committed = new AtomicInteger();
+        AtomicInteger released = new AtomicInteger();
+        AtomicInteger refused = new AtomicInteger();
+
+        // Each owner commits and releases its own reservation at once; only one of the two may apply
+        List<Callable<Void>> callers = new ArrayList<>();
+        for (int i = 0; i < STOCK; i++) {
+            String owner = "shopper" + i + "@example.com";
+            String token = reservations.get(i).getToken();
+            callers.add(() -> {
+                try {
+                    stockReservationService.commit(productId, token, owner);
+                    committed.incrementAndGet();
+                } catch (ResourceNotFoundException e) {
+                    refused.incrementAndGet();
+                }
+                return null;
+            });
+            callers.add(() -> {
+                try {
+                    stockReservationService.release(productId, token, owner);
+                    released.incrementAndGet();
+                } catch (ResourceNotFoundException e) {
+                    refused.incrementAndGet();
+                }
+                return null;
+            });
+        }
+        runTogether(callers);
+
+        assertThat(committed.get() + released.get()).isEqualTo(STOCK);
+        assertThat(refused.get()).isEqualTo(STOCK);
+        StockLevel level = productRepository.findStockLevel(productId).orElseThrow();
+        assertThat(level.getAvailable()).isEqualTo(released.get());
+        assertThat(level.getReserved()).isZero();
+        assertThat(reservationRepository.count()).isZero();
+    }
+
+    @Test
+    void onlyTheOwnerCanCommitAReservation() {
+        Long productId = createProduct(STOCK);
+        StockReservationResponse reservation = stockReservationService.reserve(productId, 3, "owner@example.com");
+
+        assertThatThrownBy(() -> stockReservationService.commit(productId, reservation.getToken(),
+                "intruder@example.com")).isInstanceOf(UnauthorizedException.class);
+        assertThatThrownBy(() -> stockReservationService.release(productId, UUID.randomUUID().toString(),
+                "owner@example.com")).isInstanceOf(ResourceNotFoundException.class);
+
+        StockLevel level = stockReservationService.commit(productId, reservation.getToken(), "owner@example.com");
+        assertThat(level.getAvailable()).isEqualTo(STOCK - 3);
+        assertThat(level.getReserved()).isZero();
+    }
+
+    @Test
+    void expiredReservationsAreReleased() {
+        Long productId = createProduct(STOCK);
+        StockReservationResponse abandoned = stockReservationService.reserve(productId, 5, "gone@example.com");
+        StockReservationResponse open = stockReservationService.reserve(productId, 2, "active@example.com");
+        StockReservation expired = findReservation(abandoned.getToken()).orElseThrow();
+        expired.setCreatedAt(LocalDateTime.now().minusDays(1));
+        reservationRepository.save(expired);
+
+        assertThatThrownBy(() -> stockReservationService.commit(productId, abandoned.getToken(),
+                "gone@example.com")).isInstanceOf(ResourceNotFoundException.class);
+        List<StockLevel> released = stockReservationService.releaseExpired();
+
+        assertThat(released).hasSize(1);
+        StockLevel level = productRepository.findStockLevel(productId).orElseThrow();
+        assertThat(level.getAvailable()).isEqualTo(STOCK - 2);
+        assertThat(level.getReserved()).isEqualTo(2);
+        assertThat(findReservation(abandoned.getToken())).isEmpty();
+        assertThat(findReservation(open.getToken())).isPresent();
+    }
+
+    // findByToken locks the row, so it needs a transaction; this test reads without one
+    private Optional<StockReservation> findReservation(String token) {
+        return reservationRepository.findAll().stream().filter(r -> r.getToken().equals(token)).findFirst();
+    }
+
+    private Long createProduct(int stock) {
+        return productRepository.save(Product.builder()
+                .sku("SKU-" + UUID.randomUUID())
+                .name("Stock test tee")
+                .price(new BigDecimal("20.00"))
+                .stockQuantity(stock)
+                .category(CategoryType.T_SHIRT)
+                .vendorEmail("vendor@example.com")
+                .build()).getId();
+    }
+
+    private static void runTogether(List<Callable<Void>> callers) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Void>> futures = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (Callable<Void> caller : callers) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return caller.call();
+                }));
+            }
+            start.countDown();
+        }
+        for (Future<Void> future : futures) {
+            future.get(); // Surfaces anything other than the expected refusals
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.ecommerce.product.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.CacheControl;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.resource.ResourceHttpRequestHandler;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of serving an upload through {@link ZeroCopyFileServer} against Spring's
+ * {@link ResourceHttpRequestHandler}, which served {@code /uploads/**} before, and
+ * a bare stream copy as the floor. {@code sendfile} measures only the handler's
+ * share, since the connector does the transfer; {@code transfer} is the non-Tomcat
+ * path. Run with:
+ *
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=org.openjdk.jmh.Main \
+ *     -Dexec.args="ZeroCopyFileServerBenchmark"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ZeroCopyFileServerBenchmark {
+
+    @Param({ "16384", "1048576" })
+    private int fileSize;
+
+    private Path dir;
+    private Path file;
+    private ZeroCopyFileServer server;
+    private ResourceHttpRequestHandler resourceHandler;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        dir = Files.createTempDirectory("zero-copy-bench");
+        file = dir.resolve("image.jpg");
+        byte[] bytes = new byte[fileSize];
+        ThreadLocalRandom.current().nextBytes(bytes);
+        Files.write(file, bytes);
+        server = new ZeroCopyFileServer(new SimpleMeterRegistry(), 1000, 16, Duration.ofMinutes(10));
+        resourceHandler = new ResourceHttpRequestHandler();
+        resourceHandler.setLocations(List.of(new FileSystemResource(dir.toString() + "/")));
+        resourceHandler.setCacheControl(CacheControl.noCache());
+        resourceHandler.setServletContext(new MockServletContext());
+        resourceHandler.afterPropertiesSet();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        server.shutdown();
+        Files.deleteIfExists(file);
+        Files.deleteIfExists(dir);
+    }
+
+    @Benchmark
+    public long sendfile() throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/uploads/image.jpg");
+        request.setAttribute("org.apache.tomcat.sendfile.support", Boolean.TRUE);
+        DiscardingResponse response = new DiscardingResponse();
+        server.serve(file, CacheControl.noCache(), request, response);
+        return (Long) request.getAttribute("org.apache.tomcat.sendfile.end");
+    }
+
+    @Benchmark
+    public long transfer() throws IOException {
+        DiscardingResponse response = new DiscardingResponse();
+        server.serve(file, CacheControl.noCache(), new MockHttpServletRequest("GET", "/uploads/image.jpg"), response);
+        return response.out.written;
+    }
+
+    @Benchmark
+    public long resourceHandler() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/uploads/image.jpg");
+        request.setAttribute(HandlerMapping.PATH_WITHIN_HANDLER_MAPPING_ATTRIBUTE, "image.jpg");
+        DiscardingResponse response = new DiscardingResponse();
+        resourceHandler.handleRequest(request, response);
+        return response.out.written;
+    }
+
+    @Benchmark
+    public long streamCopy() throws IOException {
+        DiscardingResponse response = new DiscardingResponse();
+        try (InputStream in = Files.newInputStream(file)) {
+            in.transferTo(response.getOutputStream());
+        }
+        return response.out.written;
+    }
+
+    private static class DiscardingResponse extends MockHttpServletResponse {
+        private final CountingOutputStream out = new CountingOutputStream();
+
+        @Override
+        public ServletOutputStream getOutputStream() {
+            return out;
+        }
+    }
+
+    private static class CountingOutputStream extends ServletOutputStream {
+        private long written;
+
+        @Override
+        public void write(int b) {
+            written++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            written += len;
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setWriteListener(WriteListener listener) {
+        }
+    }
+}